@@ -19,21 +19,6 @@ else
     exit 1
 fi
 
-BENCHMARK_FOLDER="./benchmarks"
-for file in "$BENCHMARK_FOLDER"/*.txt; do
-    if [[ -f "$file" ]]; then
-        echo "---------------------------------"
-        echo "Examples in $file:"
-        echo "$(<$file)"
-
-        echo -e "\nSynthesizing a program using the top-down enumerative search approach..."
-        java -cp lib:target/synth-1.0.jar synth.Main $file
-
-        echo -e "\nSynthesizing a program using the constraint-based enumeration approach..."
-        java -cp lib/*:target/synth-1.0.jar synth.Main $file constraint-based
-
-        echo -e "\nSynthesizing a program using the divide-and-conquer enumeration approach..."
-        java -cp lib:target/synth-1.0.jar synth.Main $file divide-conquer
-        echo "---------------------------------"
-    fi
-done
+# Run all benchmarks with all synthesizers in a single JVM, e.g.
+# ./eval.sh --synthesizers top-down,divide-conquer --runs 5 --csv results.csv --baseline baseline.csv
+java -cp "lib/*:target/synth-1.0.jar" synth.BenchmarkRunner "$@"
@@ -0,0 +1,140 @@
+package synth.core;
+
+import synth.cfg.CFG;
+import synth.cfg.NonTerminal;
+import synth.cfg.Production;
+import synth.cfg.Terminal;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Grammar, examples and programs shared by the benchmarks, generated from fixed seeds so that every run measures the same inputs
+ */
+final class BenchmarkFixtures {
+    static final long SEED = 42;
+    static final SymbolTable SYMBOLS = new SymbolTable(List.of("x", "y", "z"));
+
+    private BenchmarkFixtures() {
+    }
+
+    /**
+     * Build the same CFG as the one used by Main
+     *
+     * @return the CFG
+     */
+    static CFG buildCFG() {
+        Map<NonTerminal, List<Production>> symbolToProductions = new HashMap<>();
+        NonTerminal e = new NonTerminal("E");
+        NonTerminal b = new NonTerminal("B");
+        List<Production> exprProds = new ArrayList<>();
+        exprProds.add(new Production(e, new Terminal("Ite"), List.of(b, e, e)));
+        exprProds.add(new Production(e, new Terminal("Add"), List.of(e, e)));
+        exprProds.add(new Production(e, new Terminal("Multiply"), List.of(e, e)));
+        for (String name : SYMBOLS.getNames()) {
+            exprProds.add(new Production(e, new Terminal(name, SYMBOLS.getSlot(name)), Collections.emptyList()));
+        }
+        for (String leaf : List.of("1", "2", "3")) {
+            exprProds.add(new Production(e, new Terminal(leaf), Collections.emptyList()));
+        }
+        symbolToProductions.put(e, exprProds);
+        List<Production> predProds = new ArrayList<>();
+        predProds.add(new Production(b, new Terminal("Lt"), List.of(e, e)));
+        predProds.add(new Production(b, new Terminal("Eq"), List.of(e, e)));
+        predProds.add(new Production(b, new Terminal("And"), List.of(b, b)));
+        predProds.add(new Production(b, new Terminal("Or"), List.of(b, b)));
+        predProds.add(new Production(b, new Terminal("Not"), List.of(b)));
+        symbolToProductions.put(b, predProds);
+        return new CFG(e, symbolToProductions);
+    }
+
+    /**
+     * Generate examples of Ite(Lt(x, y), Add(y, z), Multiply(x, 2)) on random inputs between -10 and 10
+     *
+     * @param count the number of examples
+     * @return the examples
+     */
+    static ExampleSet buildExamples(int count) {
+        Random random = new Random(SEED);
+        List<Example> examples = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int x = random.nextInt(21) - 10;
+            int y = random.nextInt(21) - 10;
+            int z = random.nextInt(21) - 10;
+            examples.add(new Example(SYMBOLS, new int[]{x, y, z}, x < y ? y + z : x * 2));
+        }
+        return new ExampleSet(SYMBOLS, examples);
+    }
+
+    /**
+     * Generate a random complete expression of at most the given size, using all productions of the CFG
+     *
+     * @param cfg    the context-free grammar
+     * @param random the source of randomness
+     * @param size   the maximum number of nodes of the expression
+     * @return the expression
+     */
+    static ASTNode randomExpr(CFG cfg, Random random, int size) {
+        List<Production> leaves = new ArrayList<>();
+        List<Production> operators = new ArrayList<>();
+        for (Production production : cfg.getProductions(new NonTerminal("E"))) {
+            (production.getArgumentSymbols().isEmpty() ? leaves : operators).add(production);
+        }
+        if (size < 3) {
+            return leaf(leaves.get(random.nextInt(leaves.size())));
+        }
+        // Ite(Lt(E, E), E, E) needs at least 6 nodes
+        Production production = operators.get(random.nextInt(operators.size()));
+        if (production.getArgumentSymbols().size() == 3 && size < 6) {
+            production = operators.get(1 + random.nextInt(operators.size() - 1));
+        }
+        if (production.getArgumentSymbols().size() == 3) {
+            int[] sizes = split(random, size - 2, 4);
+            ASTNode pred = NodeFactory.create(new Terminal("Lt"),
+                    List.of(randomExpr(cfg, random, sizes[0]), randomExpr(cfg, random, sizes[1])));
+            return NodeFactory.create(production.getOperator(),
+                    List.of(pred, randomExpr(cfg, random, sizes[2]), randomExpr(cfg, random, sizes[3])));
+        }
+        int[] sizes = split(random, size - 1, 2);
+        return NodeFactory.create(production.getOperator(),
+                List.of(randomExpr(cfg, random, sizes[0]), randomExpr(cfg, random, sizes[1])));
+    }
+
+    /**
+     * Replace the last leaf of an expression by a hole
+     *
+     * @param node the complete expression
+     * @return the partial expression
+     */
+    static ASTNode withHole(ASTNode node) {
+        if (node.getChildren().isEmpty()) {
+            return NodeFactory.create(new NonTerminal("E"), Collections.emptyList());
+        }
+        List<ASTNode> children = new ArrayList<>(node.getChildren());
+        int last = children.size() - 1;
+        children.set(last, withHole(children.get(last)));
+        return NodeFactory.create(node.getSymbol(), children);
+    }
+
+    /**
+     * Split a number of nodes randomly into parts of at least one node each
+     */
+    private static int[] split(Random random, int total, int parts) {
+        int[] sizes = new int[parts];
+        int remaining = total - parts;
+        for (int i = 0; i < parts; i++) {
+            int extra = i == parts - 1 ? remaining : random.nextInt(remaining + 1);
+            sizes[i] = 1 + extra;
+            remaining -= extra;
+        }
+        return sizes;
+    }
+
+    private static ASTNode leaf(Production production) {
+        return NodeFactory.create(production.getOperator(), Collections.emptyList());
+    }
+}
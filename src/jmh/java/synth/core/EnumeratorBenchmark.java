@@ -0,0 +1,62 @@
+package synth.core;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import synth.cfg.CFG;
+
+import java.util.LinkedList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of the expression enumerator over the first nodes of a fresh enumeration,
+ * with and without skipping the nodes whose output vector was already seen
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EnumeratorBenchmark {
+    /**
+     * Number of nodes enumerated by each invocation
+     */
+    private static final int NODES = 1000;
+
+    @Param({"3", "100"})
+    public int exampleCount;
+
+    @Param({"true", "false"})
+    public boolean distinct;
+
+    private CFG cfg;
+    private BatchInterpreter interpreter;
+
+    @Setup
+    public void setup() {
+        cfg = BenchmarkFixtures.buildCFG();
+        interpreter = new BatchInterpreter(BenchmarkFixtures.buildExamples(exampleCount));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(NODES)
+    public void enumerate(Blackhole blackhole) {
+        Enumerator enumerator = distinct
+                ? new ExpressionEnumerator(cfg, new LinkedList<>(), interpreter, new SearchMetrics(), SymmetryBreaking.ALL)
+                : new ExpressionEnumerator(cfg);
+        for (int i = 0; i < NODES; i++) {
+            blackhole.consume(enumerator.enumerate());
+        }
+    }
+}
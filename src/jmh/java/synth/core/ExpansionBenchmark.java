@@ -0,0 +1,51 @@
+package synth.core;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import synth.cfg.CFG;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Expansion of the deepest hole of a random partial program, with and without symmetry breaking
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ExpansionBenchmark {
+    @Param({"7", "31", "127"})
+    public int treeSize;
+
+    @Param({"all", "none"})
+    public String symmetry;
+
+    private CFG cfg;
+    private ASTNode node;
+    private SymmetryBreaking symmetryBreaking;
+
+    @Setup
+    public void setup() {
+        cfg = BenchmarkFixtures.buildCFG();
+        node = BenchmarkFixtures.withHole(BenchmarkFixtures.randomExpr(cfg, new Random(BenchmarkFixtures.SEED), treeSize));
+        symmetryBreaking = SymmetryBreaking.parse(symmetry);
+    }
+
+    @Benchmark
+    public List<ASTNode> expand() {
+        return Utils.expand(node, cfg, symmetryBreaking);
+    }
+}
@@ -0,0 +1,91 @@
+package synth.core;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import synth.cfg.CFG;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Evaluation of a random program on all examples, one example at a time, all at once, and through the validation
+ * of Utils.isValid. The validation of a program satisfying all examples is measured both by the batch interpreter
+ * and by compiling the program, which shows whether the compilation pays off at a number of examples.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class InterpreterBenchmark {
+    @Param({"7", "31", "127"})
+    public int treeSize;
+
+    @Param({"3", "100", "2000"})
+    public int exampleCount;
+
+    private Program program;
+    private List<Example> examples;
+    private BatchInterpreter interpreter;
+    private int[] outputs;
+    /**
+     * the outputs of the program itself, so that its validation goes through all examples
+     */
+    private int[] programOutputs;
+
+    @Setup
+    public void setup() {
+        CFG cfg = BenchmarkFixtures.buildCFG();
+        ExampleSet exampleSet = BenchmarkFixtures.buildExamples(exampleCount);
+        program = new Program(BenchmarkFixtures.randomExpr(cfg, new Random(BenchmarkFixtures.SEED), treeSize));
+        examples = exampleSet.getExamples();
+        interpreter = new BatchInterpreter(exampleSet);
+        outputs = exampleSet.getOutputs();
+        programOutputs = interpreter.evalExpr(program.getRoot());
+    }
+
+    @Benchmark
+    public void evaluate(Blackhole blackhole) {
+        for (Example example : examples) {
+            blackhole.consume(Interpreter.evaluate(program, example));
+        }
+    }
+
+    @Benchmark
+    public int[] evaluateBatch() {
+        return interpreter.evalExpr(program.getRoot());
+    }
+
+    @Benchmark
+    public boolean isValid() {
+        return Utils.isValid(program, interpreter, outputs);
+    }
+
+    @Benchmark
+    public boolean isValidBatch() {
+        return Arrays.equals(interpreter.evalExpr(program.getRoot()), programOutputs);
+    }
+
+    @Benchmark
+    public boolean isValidCompiled() {
+        return ProgramCompiler.compile(program, interpreter.getVariables()).isValid(interpreter, programOutputs);
+    }
+
+    @Benchmark
+    public boolean isValidFromExamples() {
+        return Utils.isValid(program, examples);
+    }
+}
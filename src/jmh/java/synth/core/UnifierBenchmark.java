@@ -0,0 +1,84 @@
+package synth.core;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import synth.cfg.CFG;
+
+import java.util.BitSet;
+import java.util.LinkedList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Unification of the distinct expressions and predicates of the divide-and-conquer synthesizer,
+ * indexed the same way by the examples they satisfy
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UnifierBenchmark {
+    @Param({"10", "100"})
+    public int exampleCount;
+
+    /**
+     * Number of distinct expressions and predicates enumerated beyond the ones covering all examples
+     */
+    @Param({"0", "200"})
+    public int extraNodes;
+
+    @Param({"greedy", "decision-tree"})
+    public String unifier;
+
+    private CoverageIndex exprIndex;
+    private CoverageIndex predIndex;
+    private BitSet all;
+    private Unifier strategy;
+
+    @Setup
+    public void setup() {
+        CFG cfg = BenchmarkFixtures.buildCFG();
+        ExampleSet exampleSet = BenchmarkFixtures.buildExamples(exampleCount);
+        BatchInterpreter interpreter = new BatchInterpreter(exampleSet);
+        int[] outputs = exampleSet.getOutputs();
+        exprIndex = index(new ExpressionEnumerator(cfg, new LinkedList<>(), interpreter, new SearchMetrics(), SymmetryBreaking.ALL), interpreter, outputs);
+        predIndex = index(new PredicateEnumerator(cfg, new LinkedList<>(), interpreter, new SearchMetrics(), SymmetryBreaking.ALL), interpreter, outputs);
+        all = new BitSet(outputs.length);
+        all.set(0, outputs.length);
+        strategy = "decision-tree".equals(unifier) ? new DecisionTreeUnifier() : new GreedyUnifier();
+    }
+
+    @Benchmark
+    public ASTNode unify() {
+        return strategy.unify(exprIndex, predIndex, all);
+    }
+
+    /**
+     * Index the distinct nodes of an enumerator until they cover all examples, then the extra nodes
+     */
+    private CoverageIndex index(Enumerator enumerator, BatchInterpreter interpreter, int[] outputs) {
+        CoverageIndex index = new CoverageIndex();
+        int extra = 0;
+        while (!index.covers(outputs.length) || extra < extraNodes) {
+            ASTNode node = enumerator.enumerate();
+            if (node == null) {
+                throw new RuntimeException("Cannot enumerate any node");
+            }
+            if (index.add(node, DivideAndConquerSynthesizer.satisfiedExamples(node, enumerator, interpreter, outputs))
+                    && index.covers(outputs.length)) {
+                extra++;
+            }
+        }
+        return index;
+    }
+}
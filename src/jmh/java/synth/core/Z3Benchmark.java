@@ -0,0 +1,63 @@
+package synth.core;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import synth.cfg.CFG;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Round trip of a partial program through the Z3 feasibility checker, which translates it and solves it on every example.
+ * Patterns learned from UNSAT cores are not shared between invocations, so that each one reaches Z3.
+ * It requires the Z3 native library on the library path.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Djava.library.path=lib"})
+public class Z3Benchmark {
+    @Param({"7", "31"})
+    public int treeSize;
+
+    @Param({"3", "10", "50"})
+    public int exampleCount;
+
+    @Param({"1", "2", "4"})
+    public int parallelism;
+
+    private ASTNode node;
+    private ExampleSet exampleSet;
+    private Z3FeasibilityChecker checker;
+
+    @Setup
+    public void setup() {
+        CFG cfg = BenchmarkFixtures.buildCFG();
+        node = BenchmarkFixtures.withHole(BenchmarkFixtures.randomExpr(cfg, new Random(BenchmarkFixtures.SEED), treeSize));
+        exampleSet = BenchmarkFixtures.buildExamples(exampleCount);
+        checker = new Z3FeasibilityChecker(exampleSet.getExamples(), parallelism, new ForbiddenPatternIndex(0),
+                SearchBudget.unlimited());
+    }
+
+    @TearDown
+    public void tearDown() {
+        checker.close();
+    }
+
+    @Benchmark
+    public boolean isSatisfiable() {
+        return checker.isSatisfiable(node);
+    }
+}
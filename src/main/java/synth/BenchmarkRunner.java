@@ -0,0 +1,357 @@
+package synth;
+
+import synth.cfg.CFG;
+import synth.core.BudgetExceededException;
+import synth.core.ExampleSet;
+import synth.core.ISynthesizer;
+import synth.core.Program;
+import synth.core.SearchBudget;
+import synth.core.Utils;
+import synth.util.FileUtils;
+import synth.util.Parser;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.logging.Logger;
+
+/**
+ * Runner of all benchmarks with several synthesizers in a single JVM.
+ * Each benchmark is loaded once and run with each synthesizer after warm-up runs. The median wall time,
+ * the nodes explored and the size of the program are written to CSV or JSON, and compared with a baseline CSV.
+ * <pre>
+ * java synth.BenchmarkRunner [--benchmarks dir] [--synthesizers top-down,divide-conquer] [--warmup n] [--runs n]
+ *                            [--parallelism n] [--timeout ms] [--csv file] [--json file] [--baseline file] [--threshold ratio]
+ * </pre>
+ * The exit code is 1 if a regression is found.
+ */
+public class BenchmarkRunner {
+    static {
+        // must set before the Logger
+        if (System.getProperty("java.util.logging.config.file") == null) {
+            System.setProperty("java.util.logging.config.file", "logging.properties");
+        }
+    }
+
+    private static final Logger LOGGER = Logger.getLogger(BenchmarkRunner.class.getName());
+    private static final String CSV_HEADER = "benchmark,synthesizer,status,time_ms,nodes,size,program";
+    /**
+     * Differences of time below this are considered noise
+     */
+    private static final long MIN_TIME_DELTA = 50;
+    /**
+     * Time waited beyond the timeout for a synthesizer to notice its deadline
+     */
+    private static final long TIMEOUT_GRACE = 1000;
+
+    private final int warmup;
+    private final int runs;
+    private final long timeout;
+    /**
+     * threads running the synthesizers, which do not keep the JVM alive if a synthesizer ignores its cancellation
+     */
+    private final ExecutorService runner = Executors.newCachedThreadPool(daemonThreads("synth-benchmark-run"));
+
+    public BenchmarkRunner(int warmup, int runs, long timeout) {
+        this.warmup = warmup;
+        this.runs = runs;
+        this.timeout = timeout;
+    }
+
+    /**
+     * The outcome of a synthesizer on a benchmark
+     */
+    static class Result {
+        final String benchmark;
+        final String synthesizer;
+        /**
+         * OK, INVALID, FAIL, TIMEOUT or ERROR
+         */
+        final String status;
+        final long time;
+        final long nodes;
+        final int size;
+        final String program;
+
+        Result(String benchmark, String synthesizer, String status, long time, long nodes, int size, String program) {
+            this.benchmark = benchmark;
+            this.synthesizer = synthesizer;
+            this.status = status;
+            this.time = time;
+            this.nodes = nodes;
+            this.size = size;
+            this.program = program;
+        }
+
+        String key() {
+            return benchmark + "," + synthesizer;
+        }
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        Map<String, String> options = parseOptions(args);
+        Path benchmarks = Paths.get(options.getOrDefault("benchmarks", "benchmarks"));
+        List<String> synthesizers = Arrays.asList(options.getOrDefault("synthesizers", "top-down,constraint-based,divide-conquer").split(","));
+        int parallelism = Integer.parseInt(options.getOrDefault("parallelism", "1"));
+        BenchmarkRunner runner = new BenchmarkRunner(Integer.parseInt(options.getOrDefault("warmup", "1")),
+                Integer.parseInt(options.getOrDefault("runs", "3")), Long.parseLong(options.getOrDefault("timeout", "10000")));
+
+        List<Result> results = runner.runAll(listBenchmarks(benchmarks), synthesizers, parallelism);
+        for (Result result : results) {
+            System.out.printf("%-6s %-26s %-8s %8dms %10d nodes  %s%n", result.benchmark, result.synthesizer, result.status,
+                    result.time, result.nodes, result.program == null ? "" : result.program);
+        }
+        if (options.containsKey("csv")) {
+            Files.write(Paths.get(options.get("csv")), toCsv(results));
+            LOGGER.info("Wrote the results to " + options.get("csv"));
+        }
+        if (options.containsKey("json")) {
+            Files.write(Paths.get(options.get("json")), List.of(toJson(results)));
+            LOGGER.info("Wrote the results to " + options.get("json"));
+        }
+
+        int regressions = 0;
+        if (options.containsKey("baseline")) {
+            double threshold = Double.parseDouble(options.getOrDefault("threshold", "1.2"));
+            List<String> regressionMessages = compare(results, readCsv(Paths.get(options.get("baseline"))), threshold);
+            for (String message : regressionMessages) {
+                System.out.println("REGRESSION " + message);
+            }
+            regressions = regressionMessages.size();
+            LOGGER.info(regressions + " regressions against the baseline " + options.get("baseline"));
+        }
+        System.exit(regressions > 0 ? 1 : 0);
+    }
+
+    /**
+     * Run every synthesizer on every benchmark, running up to parallelism benchmarks at the same time
+     *
+     * @param benchmarks   the benchmark files
+     * @param synthesizers the synthesizer options of Main
+     * @param parallelism  the number of benchmarks run at the same time
+     * @return the results in the order of benchmarks and synthesizers
+     */
+    public List<Result> runAll(List<Path> benchmarks, List<String> synthesizers, int parallelism) throws InterruptedException {
+        ExecutorService pool = Executors.newFixedThreadPool(parallelism, daemonThreads("synth-benchmark"));
+        try {
+            List<Future<Result>> futures = new ArrayList<>();
+            for (Path benchmark : benchmarks) {
+                // Load each benchmark once for all synthesizers
+                ExampleSet exampleSet = Parser.parseExampleSet(FileUtils.readLinesFromFile(benchmark.toString()));
+                String name = benchmark.getFileName().toString().replaceFirst("\\.txt$", "");
+                for (String synthesizer : synthesizers) {
+                    futures.add(pool.submit(() -> run(name, exampleSet, synthesizer)));
+                }
+            }
+            List<Result> results = new ArrayList<>();
+            for (Future<Result> future : futures) {
+                try {
+                    results.add(future.get());
+                } catch (ExecutionException e) {
+                    throw new RuntimeException("Cannot run the benchmark", e.getCause());
+                }
+            }
+            return results;
+        } finally {
+            pool.shutdownNow();
+            runner.shutdownNow();
+        }
+    }
+
+    /**
+     * Run a synthesizer on a benchmark after warming it up
+     *
+     * @return the result of the median run
+     */
+    private Result run(String benchmark, ExampleSet exampleSet, String synthesizerType) throws InterruptedException {
+        CFG cfg = Main.buildCFG(exampleSet.getSymbolTable());
+        for (int i = 0; i < warmup; i++) {
+            Result result = runOnce(benchmark, exampleSet, cfg, synthesizerType);
+            // Do not wait for a synthesizer that cannot solve the benchmark in time again
+            if (!"OK".equals(result.status)) {
+                return result;
+            }
+        }
+        List<Result> results = new ArrayList<>();
+        for (int i = 0; i < runs; i++) {
+            Result result = runOnce(benchmark, exampleSet, cfg, synthesizerType);
+            if (!"OK".equals(result.status)) {
+                return result;
+            }
+            results.add(result);
+        }
+        results.sort(Comparator.comparingLong(result -> result.time));
+        return results.get(results.size() / 2);
+    }
+
+    private Result runOnce(String benchmark, ExampleSet exampleSet, CFG cfg, String synthesizerType) throws InterruptedException {
+        ISynthesizer synthesizer = Main.buildSynthesizer(synthesizerType);
+        long startTime = System.nanoTime();
+        // The synthesizer stops by itself at the deadline, the runner only waits a little longer for it
+        SearchBudget budget = Main.buildBudget(timeout);
+        Future<Program> future = runner.submit(() -> synthesizer.synthesize(cfg, exampleSet.getExamples(), budget));
+        Program program;
+        String status;
+        try {
+            program = future.get(timeout + TIMEOUT_GRACE, TimeUnit.MILLISECONDS);
+            status = program == null ? "FAIL" : Utils.isValid(program, exampleSet.getExamples()) ? "OK" : "INVALID";
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            program = null;
+            status = "TIMEOUT";
+        } catch (ExecutionException e) {
+            program = null;
+            if (e.getCause() instanceof BudgetExceededException) {
+                // Any other budget than the deadline bounds the search space, so the benchmark is not solved within it
+                boolean deadline = ((BudgetExceededException) e.getCause()).getReason() == BudgetExceededException.Reason.DEADLINE;
+                status = deadline ? "TIMEOUT" : "FAIL";
+            } else {
+                LOGGER.warning(synthesizerType + " failed on " + benchmark + ": " + e.getCause());
+                status = "ERROR";
+            }
+        }
+        long time = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime);
+        return new Result(benchmark, synthesizerType, status, time, synthesizer.getMetrics().getNodesExplored(),
+                program == null ? 0 : program.getRoot().size(), program == null ? null : program.toString());
+    }
+
+    /**
+     * Compare the results with a baseline, where a result regresses if it is no longer solved,
+     * if it is slower than the threshold times the baseline by more than the noise, or if its program is larger
+     *
+     * @param results   the results
+     * @param baseline  the results of the baseline
+     * @param threshold the ratio of time above which a result is slower
+     * @return the regression messages
+     */
+    static List<String> compare(List<Result> results, List<Result> baseline, double threshold) {
+        Map<String, Result> baselineByKey = new HashMap<>();
+        for (Result result : baseline) {
+            baselineByKey.put(result.key(), result);
+        }
+        List<String> regressions = new ArrayList<>();
+        for (Result result : results) {
+            Result before = baselineByKey.get(result.key());
+            if (before == null || !"OK".equals(before.status)) {
+                continue;
+            }
+            if (!"OK".equals(result.status)) {
+                regressions.add(result.key() + " status " + before.status + " -> " + result.status);
+            } else if (result.time > before.time * threshold && result.time - before.time > MIN_TIME_DELTA) {
+                regressions.add(result.key() + " time " + before.time + "ms -> " + result.time + "ms");
+            } else if (result.size > before.size) {
+                regressions.add(result.key() + " size " + before.size + " -> " + result.size);
+            }
+        }
+        return regressions;
+    }
+
+    static List<String> toCsv(List<Result> results) {
+        List<String> lines = new ArrayList<>();
+        lines.add(CSV_HEADER);
+        for (Result result : results) {
+            lines.add(String.join(",", result.benchmark, result.synthesizer, result.status, String.valueOf(result.time),
+                    String.valueOf(result.nodes), String.valueOf(result.size),
+                    result.program == null ? "" : "\"" + result.program.replace("\"", "\"\"") + "\""));
+        }
+        return lines;
+    }
+
+    static List<Result> readCsv(Path path) throws IOException {
+        List<Result> results = new ArrayList<>();
+        for (String line : Files.readAllLines(path)) {
+            if (line.isBlank() || line.equals(CSV_HEADER)) {
+                continue;
+            }
+            // The program is the last column, and it is quoted since it contains commas
+            String[] columns = line.split(",", 7);
+            String program = columns[6].isEmpty() ? null : columns[6].substring(1, columns[6].length() - 1).replace("\"\"", "\"");
+            results.add(new Result(columns[0], columns[1], columns[2], Long.parseLong(columns[3]), Long.parseLong(columns[4]),
+                    Integer.parseInt(columns[5]), program));
+        }
+        return results;
+    }
+
+    static String toJson(List<Result> results) {
+        StringBuilder builder = new StringBuilder("[");
+        for (int i = 0; i < results.size(); i++) {
+            Result result = results.get(i);
+            builder.append(i == 0 ? "" : ",").append(System.lineSeparator())
+                    .append("  {\"benchmark\": ").append(quote(result.benchmark))
+                    .append(", \"synthesizer\": ").append(quote(result.synthesizer))
+                    .append(", \"status\": ").append(quote(result.status))
+                    .append(", \"timeMs\": ").append(result.time)
+                    .append(", \"nodes\": ").append(result.nodes)
+                    .append(", \"size\": ").append(result.size)
+                    .append(", \"program\": ").append(result.program == null ? "null" : quote(result.program))
+                    .append("}");
+        }
+        return builder.append(System.lineSeparator()).append("]").toString();
+    }
+
+    /**
+     * @return the value as a JSON string, escaping the quotes, the backslashes and the control characters
+     */
+    private static String quote(String value) {
+        StringBuilder builder = new StringBuilder("\"");
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                builder.append('\\').append(c);
+            } else if (c < 0x20) {
+                builder.append(String.format("\\u%04x", (int) c));
+            } else {
+                builder.append(c);
+            }
+        }
+        return builder.append('"').toString();
+    }
+
+    /**
+     * @return the benchmark files of the directory, ordered by their number, e.g. P2 before P10
+     */
+    private static List<Path> listBenchmarks(Path directory) throws IOException {
+        List<Path> benchmarks = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "P*.txt")) {
+            stream.forEach(benchmarks::add);
+        }
+        benchmarks.sort(Comparator.comparingInt((Path path) -> path.getFileName().toString().replaceAll("\\D", "").isEmpty()
+                ? 0 : Integer.parseInt(path.getFileName().toString().replaceAll("\\D", "")))
+                .thenComparing(Path::toString));
+        return benchmarks;
+    }
+
+    private static Map<String, String> parseOptions(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            if (!args[i].startsWith("--")) {
+                throw new RuntimeException("Unknown argument: " + args[i]);
+            }
+            options.put(args[i].substring(2), args[i + 1]);
+        }
+        return options;
+    }
+
+    private static ThreadFactory daemonThreads(String name) {
+        return runnable -> {
+            Thread thread = new Thread(runnable, name);
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
@@ -3,12 +3,28 @@ package synth;
 import synth.cfg.CFG;
 import synth.cfg.NonTerminal;
 import synth.cfg.Terminal;
+import synth.core.BottomUpEnumSynthesizer;
 import synth.core.ConstraintBasedSynthesizer;
+import synth.core.DecisionTreeUnifier;
 import synth.core.DivideAndConquerSynthesizer;
 import synth.core.Example;
+import synth.core.ExampleSet;
+import synth.core.GreedyUnifier;
 import synth.core.ISynthesizer;
+import synth.core.IterativeDeepeningSynthesizer;
+import synth.core.DistanceCostModel;
+import synth.core.ParallelTopDownEnumSynthesizer;
+import synth.core.PipelinedDivideAndConquerSynthesizer;
+import synth.core.PortfolioSynthesizer;
+import synth.core.PriorityWorkList;
+import synth.core.SearchBudget;
+import synth.core.SpillingWorkList;
 import synth.cfg.Production;
+import synth.core.SymbolTable;
+import synth.core.SymmetryBreaking;
 import synth.core.TopDownEnumSynthesizer;
+import synth.core.WorkListFactory;
+import synth.core.WeightedCostModel;
 import synth.util.FileUtils;
 import synth.util.Parser;
 import synth.util.SynthesisTask;
@@ -16,13 +32,13 @@ import synth.util.SynthesisTask;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
-import java.util.concurrent.TimeUnit;
-import java.util.concurrent.TimeoutException;
 import java.util.logging.Logger;
 
 public class Main {
@@ -36,31 +52,35 @@ public class Main {
     private static final Logger LOGGER = Logger.getLogger(Main.class.getName());
     private static final String CONSTRAINT_BASED = "constraint-based";
     private static final String DIVIDE_AND_CONQUER = "divide-conquer";
+    private static final String DIVIDE_AND_CONQUER_PIPELINED = "divide-conquer-pipelined";
+    private static final String BOTTOM_UP = "bottom-up";
+    private static final String TOP_DOWN_PARALLEL = "top-down-parallel";
+    private static final String TOP_DOWN_COST = "top-down-cost";
+    private static final String ITERATIVE_DEEPENING = "iterative-deepening";
+    private static final String PORTFOLIO = "portfolio";
 
     public static void main(String[] args) throws InterruptedException {
         String examplesFilePath = args[0];
         List<String> lines = FileUtils.readLinesFromFile(examplesFilePath);
         // parse all examples
-        List<Example> examples = Parser.parseAllExamples(lines);
-        // read the CFG
-        CFG cfg = buildCFG();
+        ExampleSet exampleSet = Parser.parseExampleSet(lines);
+        List<Example> examples = exampleSet.getExamples();
+        // read the CFG over the variables of the examples
+        CFG cfg = buildCFG(exampleSet.getSymbolTable());
         // read the synthesizer
         ISynthesizer synthesizer = buildSynthesizer(args.length > 1 ? args[1] : null);
 
+        // The search stops by itself once it exceeds its budget, 10 seconds by default
+        SearchBudget budget = buildBudget(Long.getLong("synth.timeout", 10000));
+
         ExecutorService executor = Executors.newSingleThreadExecutor();
-        Future<?> future = executor.submit(new SynthesisTask(synthesizer, cfg, examples));
+        Future<?> future = executor.submit(new SynthesisTask(synthesizer, cfg, examples, budget));
         try {
-            future.get(10, TimeUnit.SECONDS);
-        } catch (TimeoutException e) {
-            future.cancel(true);
-            LOGGER.info("Unable to synthesize a program within the time limit");
-        } catch (Exception e) {
-            LOGGER.severe("An error occurred during synthesis: " + e.getMessage());
+            future.get();
+        } catch (ExecutionException e) {
+            LOGGER.severe("An error occurred during synthesis: " + e.getCause());
         } finally {
-            executor.shutdownNow();
-            if (!executor.awaitTermination(100, TimeUnit.MICROSECONDS)) {
-                System.exit(0);
-            }
+            executor.shutdown();
         }
     }
 
@@ -69,10 +89,12 @@ public class Main {
      * E ::= Ite(B, E, E) | Add(E, E) | Multiply(E, E) | x | y | z | 1 | 2 | 3
      * B ::= Lt(E, E) | Eq(E, E) | And(B, B) | Or(B, B) | Not(B)
      * where x, y, z are variables. 1, 2, 3 are constants. Lt means "less than". Eq means "equals"
+     * The variables are taken from the symbol table and resolved to their slots.
      *
+     * @param symbols the symbol table of the examples
      * @return the CFG
      */
-    private static CFG buildCFG() {
+    public static CFG buildCFG(SymbolTable symbols) {
         NonTerminal startSymbol = new NonTerminal("E");
         Map<NonTerminal, List<Production>> symbolToProductions = new HashMap<>();
         {
@@ -81,9 +103,9 @@ public class Main {
             prods.add(new Production(new NonTerminal("E"), new Terminal("Ite"), List.of(new NonTerminal("B"), new NonTerminal("E"), new NonTerminal("E"))));
             prods.add(new Production(new NonTerminal("E"), new Terminal("Add"), List.of(new NonTerminal("E"), new NonTerminal("E"))));
             prods.add(new Production(new NonTerminal("E"), new Terminal("Multiply"), List.of(new NonTerminal("E"), new NonTerminal("E"))));
-            prods.add(new Production(new NonTerminal("E"), new Terminal("x"), Collections.emptyList()));
-            prods.add(new Production(new NonTerminal("E"), new Terminal("y"), Collections.emptyList()));
-            prods.add(new Production(new NonTerminal("E"), new Terminal("z"), Collections.emptyList()));
+            for (String name : symbols.getNames()) {
+                prods.add(new Production(new NonTerminal("E"), new Terminal(name, symbols.getSlot(name)), Collections.emptyList()));
+            }
             prods.add(new Production(new NonTerminal("E"), new Terminal("1"), Collections.emptyList()));
             prods.add(new Production(new NonTerminal("E"), new Terminal("2"), Collections.emptyList()));
             prods.add(new Production(new NonTerminal("E"), new Terminal("3"), Collections.emptyList()));
@@ -108,16 +130,83 @@ public class Main {
      * @param synthesizerType
      * @return the synthesizer
      */
-    private static ISynthesizer buildSynthesizer(String synthesizerType) {
+    static ISynthesizer buildSynthesizer(String synthesizerType) {
+        // The symmetry-breaking rules, e.g. commutativity,identity, all by default or none
+        SymmetryBreaking symmetryBreaking = SymmetryBreaking.parse(System.getProperty("synth.symmetry"));
         if (CONSTRAINT_BASED.equals(synthesizerType)) {
-            LOGGER.info("Using the constraint-based synthesizer");
-            return new ConstraintBasedSynthesizer();
+            int threads = Integer.getInteger("synth.z3.threads", 1);
+            LOGGER.info("Using the constraint-based synthesizer with " + threads + " Z3 contexts");
+            return new ConstraintBasedSynthesizer(buildWorkListFactory(), threads, symmetryBreaking);
         } else if (DIVIDE_AND_CONQUER.equals(synthesizerType)) {
-            LOGGER.info("Using the divide-and-conquer synthesizer");
-            return new DivideAndConquerSynthesizer();
+            // The unifier is either greedy or decision-tree
+            boolean decisionTree = "decision-tree".equals(System.getProperty("synth.unifier"));
+            LOGGER.info("Using the divide-and-conquer synthesizer with the " + (decisionTree ? "decision-tree" : "greedy") + " unifier");
+            return new DivideAndConquerSynthesizer((cfg, examples) -> new LinkedList<>(),
+                    decisionTree ? new DecisionTreeUnifier() : new GreedyUnifier(), symmetryBreaking);
+        } else if (DIVIDE_AND_CONQUER_PIPELINED.equals(synthesizerType)) {
+            boolean decisionTree = "decision-tree".equals(System.getProperty("synth.unifier"));
+            LOGGER.info("Using the pipelined divide-and-conquer synthesizer with the " + (decisionTree ? "decision-tree" : "greedy") + " unifier");
+            return new PipelinedDivideAndConquerSynthesizer((cfg, examples) -> new LinkedList<>(),
+                    decisionTree ? new DecisionTreeUnifier() : new GreedyUnifier(), Integer.getInteger("synth.queue.capacity", 1024),
+                    symmetryBreaking);
+        } else if (BOTTOM_UP.equals(synthesizerType)) {
+            LOGGER.info("Using the bottom-up enumeration synthesizer");
+            return new BottomUpEnumSynthesizer();
+        } else if (TOP_DOWN_PARALLEL.equals(synthesizerType)) {
+            int threads = Integer.getInteger("synth.threads", Runtime.getRuntime().availableProcessors());
+            LOGGER.info("Using the parallel top-down enumeration synthesizer with " + threads + " threads");
+            return new ParallelTopDownEnumSynthesizer(threads, symmetryBreaking);
+        } else if (TOP_DOWN_COST.equals(synthesizerType)) {
+            // Production weights of the form Ite:3,Multiply:2, all other productions weigh 1
+            Map<String, Integer> weights = WeightedCostModel.parseWeights(System.getProperty("synth.weights"));
+            int distanceWeight = Integer.getInteger("synth.distance.weight", 2);
+            LOGGER.info("Using the cost-directed top-down enumeration synthesizer");
+            return new TopDownEnumSynthesizer((cfg, examples) -> new PriorityWorkList(
+                    new DistanceCostModel(new WeightedCostModel(cfg, weights), examples, distanceWeight)), symmetryBreaking);
+        } else if (PORTFOLIO.equals(synthesizerType)) {
+            // The strategies raced by the portfolio, e.g. top-down,constraint-based,divide-conquer
+            List<ISynthesizer> strategies = new ArrayList<>();
+            for (String strategy : System.getProperty("synth.portfolio", "top-down,constraint-based,divide-conquer").split(",")) {
+                if (PORTFOLIO.equals(strategy.trim())) {
+                    throw new RuntimeException("A portfolio cannot contain itself");
+                }
+                strategies.add(buildSynthesizer(strategy.trim()));
+            }
+            LOGGER.info("Using the portfolio of " + strategies.size() + " synthesizers");
+            return new PortfolioSynthesizer(strategies);
+        } else if (ITERATIVE_DEEPENING.equals(synthesizerType)) {
+            LOGGER.info("Using the iterative-deepening enumeration synthesizer");
+            return new IterativeDeepeningSynthesizer(symmetryBreaking);
         } else {
             LOGGER.info("Using the top-down enumeration synthesizer");
-            return new TopDownEnumSynthesizer();
+            return new TopDownEnumSynthesizer(buildWorkListFactory(), symmetryBreaking);
+        }
+    }
+
+    /**
+     * Build the budget of a synthesis with the limits set by synth.max.nodes, synth.max.size
+     * and synth.max.memory in megabytes, which are unlimited by default
+     *
+     * @param timeout the wall-clock time of the synthesis in milliseconds
+     * @return the budget
+     */
+    static SearchBudget buildBudget(long timeout) {
+        return new SearchBudget(timeout, Long.getLong("synth.max.nodes", 0), Integer.getInteger("synth.max.size", 0),
+                Long.getLong("synth.max.memory", 0) * 1024 * 1024);
+    }
+
+    /**
+     * Build the factory of the breadth-first work list, which spills to temporary files
+     * once its nodes exceed the heap budget in megabytes set by synth.frontier.budget
+     *
+     * @return the work list factory
+     */
+    private static WorkListFactory buildWorkListFactory() {
+        Long budget = Long.getLong("synth.frontier.budget");
+        if (budget == null) {
+            return (cfg, examples) -> new LinkedList<>();
         }
+        LOGGER.info("Spilling the work list beyond " + budget + "MB");
+        return (cfg, examples) -> new SpillingWorkList(budget * 1024 * 1024);
     }
 }
@@ -0,0 +1,392 @@
+package synth;
+
+import synth.cfg.CFG;
+import synth.core.BudgetExceededException;
+import synth.core.ExampleSet;
+import synth.core.ISynthesizer;
+import synth.core.Program;
+import synth.core.SearchBudget;
+import synth.core.SearchMetrics;
+import synth.util.Parser;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Phaser;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Logger;
+
+import javax.management.ObjectName;
+
+/**
+ * A long-running synthesis server, which keeps the JVM warm across synthesis jobs.
+ * Jobs are read from stdin, or from clients of a local socket, with the line protocol
+ * <pre>
+ * JOB &lt;id&gt; &lt;synthesizer&gt; &lt;deadline in ms&gt;
+ * x=1, y=2, z=3 -&gt; 6
+ * ...
+ * END
+ * </pre>
+ * where the synthesizer is one of the options of Main, or default for the top-down synthesizer.
+ * Each job is answered with ACCEPTED or REJECTED, followed by a result streamed back once the job finishes:
+ * <pre>
+ * RESULT &lt;id&gt; OK &lt;time in ms&gt; &lt;program&gt;
+ * RESULT &lt;id&gt; FAIL &lt;time in ms&gt;
+ * RESULT &lt;id&gt; TIMEOUT &lt;time in ms&gt;
+ * RESULT &lt;id&gt; BUDGET &lt;time in ms&gt; &lt;NODES, SIZE or MEMORY&gt;
+ * RESULT &lt;id&gt; ERROR &lt;message&gt;
+ * </pre>
+ * Jobs run on a bounded pool, on virtual threads where available, and a job is rejected when
+ * the pool and its queue are full, or when its id is that of a job still admitted. QUIT stops the server.
+ */
+public class SynthesisDaemon {
+    static {
+        // must set before the Logger
+        if (System.getProperty("java.util.logging.config.file") == null) {
+            System.setProperty("java.util.logging.config.file", "logging.properties");
+        }
+    }
+
+    private static final Logger LOGGER = Logger.getLogger(SynthesisDaemon.class.getName());
+    private static final String DEFAULT_SYNTHESIZER = "default";
+
+    /**
+     * permits of the jobs running at the same time
+     */
+    private final Semaphore running;
+    /**
+     * permits of the jobs running or waiting to run
+     */
+    private final Semaphore admitted;
+    private final long maxDeadline;
+    private final ExecutorService executor;
+    private final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "synth-daemon-timer");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final AtomicBoolean stopped = new AtomicBoolean(false);
+    /**
+     * parties of the admitted jobs that have not been answered yet
+     */
+    private final Phaser unanswered = new Phaser(1);
+    /**
+     * ids of the admitted jobs whose permits have not been released yet
+     */
+    private final Set<String> ids = ConcurrentHashMap.newKeySet();
+
+    /**
+     * @param workers     the number of jobs running at the same time
+     * @param queueSize   the number of jobs waiting to run, further jobs are rejected
+     * @param maxDeadline the maximum deadline of a job in milliseconds
+     */
+    public SynthesisDaemon(int workers, int queueSize, long maxDeadline) {
+        this.running = new Semaphore(workers);
+        this.admitted = new Semaphore(workers + queueSize);
+        this.maxDeadline = maxDeadline;
+        this.executor = newExecutor(workers);
+    }
+
+    public static void main(String[] args) throws IOException {
+        int workers = Integer.getInteger("synth.daemon.workers", Runtime.getRuntime().availableProcessors());
+        int queueSize = Integer.getInteger("synth.daemon.queue", 64);
+        long maxDeadline = Long.getLong("synth.daemon.max.deadline", 60_000L);
+        SynthesisDaemon daemon = new SynthesisDaemon(workers, queueSize, maxDeadline);
+
+        if (args.length > 1 && "--port".equals(args[0])) {
+            daemon.listen(Integer.parseInt(args[1]));
+        } else {
+            LOGGER.info("Reading jobs from stdin with " + workers + " workers");
+            daemon.serve(System.in, System.out);
+        }
+        daemon.shutdown();
+    }
+
+    /**
+     * Accept clients on a local port until a client sends QUIT
+     *
+     * @param port the port
+     */
+    public void listen(int port) throws IOException {
+        listen(new ServerSocket(port, 50, InetAddress.getLoopbackAddress()));
+    }
+
+    /**
+     * Accept clients on a bound server socket until a client sends QUIT, then close it
+     *
+     * @param server the server socket
+     */
+    void listen(ServerSocket server) throws IOException {
+        try {
+            LOGGER.info("Listening for jobs on port " + server.getLocalPort());
+            while (!stopped.get()) {
+                Socket socket = server.accept();
+                Thread thread = new Thread(() -> {
+                    try (Socket client = socket) {
+                        serve(client.getInputStream(), client.getOutputStream());
+                    } catch (IOException e) {
+                        LOGGER.warning("Connection failed: " + e.getMessage());
+                    }
+                    // Wake up the accepting thread to notice a QUIT
+                    if (stopped.get()) {
+                        try {
+                            server.close();
+                        } catch (IOException ignored) {
+                        }
+                    }
+                }, "synth-daemon-client");
+                thread.start();
+            }
+        } catch (IOException e) {
+            if (!stopped.get()) {
+                throw e;
+            }
+        } finally {
+            server.close();
+        }
+    }
+
+    /**
+     * Read jobs from an input stream and stream their results back, until QUIT or the end of the stream.
+     * Pending jobs keep writing their results after this method returns.
+     *
+     * @param in  the input stream of the jobs
+     * @param out the output stream of the responses
+     */
+    public void serve(InputStream in, OutputStream out) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        PrintWriter writer = new PrintWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), true);
+        // Parties of the jobs of this stream that have not been answered yet
+        Phaser pending = new Phaser(1);
+        String line;
+        while ((line = reader.readLine()) != null) {
+            String[] tokens = line.trim().split("\\s+");
+            if (tokens[0].isEmpty()) {
+                continue;
+            } else if ("QUIT".equals(tokens[0])) {
+                stopped.set(true);
+                break;
+            } else if (!"JOB".equals(tokens[0]) || tokens.length != 4) {
+                respond(writer, "ERROR Invalid command: " + line);
+                continue;
+            }
+
+            // Read the examples of the job
+            List<String> lines = new ArrayList<>();
+            while ((line = reader.readLine()) != null && !"END".equals(line.trim())) {
+                lines.add(line);
+            }
+            submit(new Job(tokens[1], writer, pending), tokens[2], tokens[3], lines);
+        }
+        // Answer the jobs of this stream before it is closed
+        pending.arriveAndAwaitAdvance();
+    }
+
+    /**
+     * A job admitted to the pool, answered exactly once
+     */
+    private class Job {
+        private final String id;
+        private final PrintWriter writer;
+        private final Phaser pending;
+        private final AtomicBoolean done = new AtomicBoolean(false);
+        private final AtomicBoolean started = new AtomicBoolean(false);
+        private final AtomicBoolean released = new AtomicBoolean(false);
+
+        Job(String id, PrintWriter writer, Phaser pending) {
+            this.id = id;
+            this.writer = writer;
+            this.pending = pending;
+        }
+
+        void admit() {
+            respond(writer, "ACCEPTED " + id);
+            pending.register();
+            unanswered.register();
+        }
+
+        void reject(String reason) {
+            respond(writer, "REJECTED " + id + " " + reason);
+        }
+
+        /**
+         * Claim the job for the thread about to run it, or for the timer if it timed out before running
+         *
+         * @return true if the caller claimed the job, false if it was already claimed
+         */
+        boolean start() {
+            return started.compareAndSet(false, true);
+        }
+
+        /**
+         * Release the permit and the id of the admitted job, exactly once
+         */
+        void release() {
+            if (released.compareAndSet(false, true)) {
+                ids.remove(id);
+                admitted.release();
+            }
+        }
+
+        /**
+         * Send the result of the job unless it was already answered
+         *
+         * @return true if the result was sent, false otherwise
+         */
+        boolean answer(String result) {
+            if (!done.compareAndSet(false, true)) {
+                return false;
+            }
+            respond(writer, "RESULT " + id + " " + result);
+            pending.arriveAndDeregister();
+            unanswered.arriveAndDeregister();
+            return true;
+        }
+    }
+
+    /**
+     * Admit a job and schedule it, or reject it
+     */
+    private void submit(Job job, String synthesizerType, String deadlineText, List<String> lines) {
+        long deadline;
+        ExampleSet exampleSet;
+        ISynthesizer synthesizer;
+        try {
+            deadline = Long.parseLong(deadlineText);
+            exampleSet = Parser.parseExampleSet(lines);
+            synthesizer = Main.buildSynthesizer(DEFAULT_SYNTHESIZER.equals(synthesizerType) ? null : synthesizerType);
+        } catch (RuntimeException e) {
+            job.reject(describe(e));
+            return;
+        }
+        if (deadline <= 0 || deadline > maxDeadline) {
+            job.reject("deadline must be within (0, " + maxDeadline + "] ms");
+            return;
+        } else if (exampleSet.size() == 0) {
+            job.reject("no examples");
+            return;
+        } else if (!ids.add(job.id)) {
+            job.reject("duplicate job id");
+            return;
+        } else if (!admitted.tryAcquire()) {
+            ids.remove(job.id);
+            job.reject("too many jobs");
+            return;
+        }
+        job.admit();
+
+        CFG cfg = Main.buildCFG(exampleSet.getSymbolTable());
+        long startTime = System.currentTimeMillis();
+        Future<?> future = executor.submit(() -> {
+            // A job that timed out before running was released by the timer
+            if (!job.start()) {
+                return;
+            }
+            try {
+                running.acquire();
+                ObjectName metricsName = null;
+                try {
+                    // Expose the counters of the running job through JMX
+                    metricsName = synthesizer.getMetrics().register("job-" + job.id);
+                    // The search stops by itself at the deadline of the job, which counts the time waiting in the queue
+                    SearchBudget budget = Main.buildBudget(Math.max(1, deadline - (System.currentTimeMillis() - startTime)));
+                    Program program = synthesizer.synthesize(cfg, exampleSet.getExamples(), budget);
+                    long time = System.currentTimeMillis() - startTime;
+                    job.answer(program != null ? "OK " + time + " " + program : "FAIL " + time);
+                } catch (BudgetExceededException e) {
+                    long time = System.currentTimeMillis() - startTime;
+                    job.answer(e.getReason() == BudgetExceededException.Reason.DEADLINE ? "TIMEOUT " + time
+                            : "BUDGET " + time + " " + e.getReason());
+                } finally {
+                    if (metricsName != null) {
+                        SearchMetrics.unregister(metricsName);
+                    }
+                    LOGGER.info("Search metrics of job " + job.id + ": " + synthesizer.getMetrics());
+                    running.release();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (RuntimeException e) {
+                job.answer("ERROR " + describe(e));
+            } finally {
+                job.release();
+            }
+        });
+        // The deadline counts from the admission of the job, including the time waiting in the queue
+        timer.schedule(() -> {
+            if (job.answer("TIMEOUT " + (System.currentTimeMillis() - startTime))) {
+                LOGGER.info("Job " + job.id + " timed out with search metrics: " + synthesizer.getMetrics());
+                future.cancel(true);
+                // A job cancelled while queued never runs, so its permit is released here
+                if (job.start()) {
+                    job.release();
+                }
+            }
+        }, deadline, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Describe an exception on a single line of the protocol
+     *
+     * @return the message of the exception with its line breaks replaced by spaces, or its class if it has none
+     */
+    static String describe(Exception e) {
+        String message = e.getMessage();
+        if (message == null || message.isBlank()) {
+            return e.getClass().getSimpleName();
+        }
+        return message.trim().replaceAll("\\s*[\\r\\n]+\\s*", " ");
+    }
+
+    private void respond(PrintWriter writer, String response) {
+        synchronized (writer) {
+            writer.println(response);
+        }
+    }
+
+    /**
+     * Wait until every admitted job is answered, then stop the pool.
+     * Jobs that timed out are interrupted, and their threads do not keep the JVM alive.
+     */
+    public void shutdown() {
+        unanswered.arriveAndAwaitAdvance();
+        executor.shutdownNow();
+        timer.shutdownNow();
+    }
+
+    /**
+     * Create a virtual-thread-per-task executor if the runtime supports it, or a fixed pool otherwise.
+     * The number of running jobs is bounded by permits in both cases.
+     */
+    private static ExecutorService newExecutor(int workers) {
+        try {
+            ExecutorService executor = (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+            LOGGER.fine("Running jobs on virtual threads");
+            return executor;
+        } catch (ReflectiveOperationException e) {
+            return Executors.newFixedThreadPool(workers, runnable -> {
+                Thread thread = new Thread(runnable, "synth-daemon-worker");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+}
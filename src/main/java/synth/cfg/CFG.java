@@ -2,6 +2,7 @@ package synth.cfg;
 
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 public class CFG {
     /**
@@ -26,6 +27,10 @@ public class CFG {
         return symbolToProductions.get(symbol);
     }
 
+    public Set<NonTerminal> getNonTerminals() {
+        return symbolToProductions.keySet();
+    }
+
     @Override
     public String toString() {
         StringBuilder builder = new StringBuilder();
@@ -7,6 +7,11 @@ public class NonTerminal extends Symbol {
         super(name);
     }
 
+    @Override
+    public int getOpcode() {
+        return Opcode.HOLE;
+    }
+
     @Override
     public boolean isTerminal() {
         return false;
@@ -0,0 +1,108 @@
+package synth.cfg;
+
+/**
+ * Integer opcodes of the symbols, resolved once from the symbol names so that
+ * evaluators and translators can dispatch on them without hashing strings.
+ */
+public final class Opcode {
+    /**
+     * non-terminal symbol, i.e. a hole in a partial program
+     */
+    public static final int HOLE = 0;
+    public static final int ITE = 1;
+    public static final int ADD = 2;
+    public static final int MULTIPLY = 3;
+    /**
+     * variable, e.g. x, y, z
+     */
+    public static final int VAR = 4;
+    /**
+     * integer constant, e.g. 1, 2, 3
+     */
+    public static final int CONST = 5;
+    public static final int LT = 6;
+    public static final int EQ = 7;
+    public static final int AND = 8;
+    public static final int OR = 9;
+    public static final int NOT = 10;
+
+    private Opcode() {
+    }
+
+    /**
+     * Resolve the opcode of a terminal symbol from its name.
+     * Other variables than x, y and z are only known from a symbol table, see resolveVariable.
+     *
+     * @param name the name of the terminal symbol
+     * @return the opcode
+     */
+    public static int resolve(String name) {
+        switch (name) {
+            case "Ite":
+                return ITE;
+            case "Add":
+                return ADD;
+            case "Multiply":
+                return MULTIPLY;
+            case "Lt":
+                return LT;
+            case "Eq":
+                return EQ;
+            case "And":
+                return AND;
+            case "Or":
+                return OR;
+            case "Not":
+                return NOT;
+            case "x":
+            case "y":
+            case "z":
+                return VAR;
+            default:
+                if (isInteger(name)) {
+                    return CONST;
+                }
+                throw new RuntimeException("Unknown symbol " + name);
+        }
+    }
+
+    /**
+     * Resolve the opcode of a variable found in a symbol table
+     *
+     * @param name the name of the variable
+     * @return the opcode, i.e. VAR
+     */
+    public static int resolveVariable(String name) {
+        if (name.isEmpty() || isInteger(name) || resolvesToOperator(name)) {
+            throw new RuntimeException("Invalid variable name " + name);
+        }
+        return VAR;
+    }
+
+    private static boolean resolvesToOperator(String name) {
+        try {
+            return resolve(name) != VAR;
+        } catch (RuntimeException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Check if an opcode denotes a predicate
+     *
+     * @param opcode the opcode
+     * @return true if the opcode is a predicate operator, false otherwise
+     */
+    public static boolean isPredicate(int opcode) {
+        return opcode == LT || opcode == EQ || opcode == AND || opcode == OR || opcode == NOT;
+    }
+
+    private static boolean isInteger(String name) {
+        if (name.isEmpty()) return false;
+        int start = name.charAt(0) == '-' && name.length() > 1 ? 1 : 0;
+        for (int i = start; i < name.length(); i++) {
+            if (!Character.isDigit(name.charAt(i))) return false;
+        }
+        return true;
+    }
+}
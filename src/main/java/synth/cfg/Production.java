@@ -34,6 +34,10 @@ public class Production {
         return operator;
     }
 
+    public int getOpcode() {
+        return operator.getOpcode();
+    }
+
     public List<Symbol> getArgumentSymbols() {
         return argSymbols;
     }
@@ -11,6 +11,11 @@ public abstract class Symbol {
         return name;
     }
 
+    /**
+     * @return the opcode of the symbol, see Opcode
+     */
+    public abstract int getOpcode();
+
     public abstract boolean isTerminal();
 
     public abstract boolean isNonTerminal();
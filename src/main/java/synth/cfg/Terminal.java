@@ -3,8 +3,54 @@ package synth.cfg;
 import java.util.Objects;
 
 public class Terminal extends Symbol {
+    /**
+     * opcode resolved from the name
+     */
+    private final int opcode;
+    /**
+     * value of an integer constant, pre-parsed from the name
+     */
+    private final int value;
+    /**
+     * slot of a variable in the inputs of examples, or -1 if unresolved
+     */
+    private final int slot;
+
+    /**
+     * @param name an operator, an integer constant or one of the variables x, y and z
+     */
     public Terminal(String name) {
+        this(name, -1);
+    }
+
+    /**
+     * @param name the name of the symbol
+     * @param slot the slot of the variable in the symbol table of the examples, or -1 if the symbol is not a variable
+     */
+    public Terminal(String name, int slot) {
         super(name);
+        this.opcode = slot >= 0 ? Opcode.resolveVariable(name) : Opcode.resolve(name);
+        this.value = opcode == Opcode.CONST ? Integer.parseInt(name) : 0;
+        this.slot = slot;
+    }
+
+    @Override
+    public int getOpcode() {
+        return opcode;
+    }
+
+    /**
+     * @return the value of the integer constant, or 0 if the terminal is not a constant
+     */
+    public int getValue() {
+        return value;
+    }
+
+    /**
+     * @return the slot of the variable in the inputs of examples, or -1 if unresolved
+     */
+    public int getSlot() {
+        return slot;
     }
 
     @Override
@@ -17,16 +63,19 @@ public class Terminal extends Symbol {
         return false;
     }
 
+    /**
+     * The slot is part of the identity of a variable, so that interned nodes keep the slot of their own symbol table
+     */
     @Override
     public int hashCode() {
-        return Objects.hashCode(name);
+        return 31 * Objects.hashCode(name) + slot;
     }
 
     @Override
     public boolean equals(Object o) {
         if (!(o instanceof Terminal)) return false;
         Terminal other = (Terminal) o;
-        return Objects.equals(name, other.name);
+        return slot == other.slot && Objects.equals(name, other.name);
     }
 
     @Override
@@ -4,13 +4,38 @@ import synth.cfg.Symbol;
 
 import java.util.List;
 
+/**
+ * An immutable node of an abstract syntax tree.
+ * The hash code, size, depth and completeness of a node are computed once from its children,
+ * so that they can be checked in constant time. Use NodeFactory to share structurally equal subtrees.
+ */
 public class ASTNode {
     private final Symbol symbol;
     private final List<ASTNode> children;
+    private final int hash;
+    private final int size;
+    private final int depth;
+    private final boolean complete;
 
     public ASTNode(Symbol symbol, List<ASTNode> children) {
         this.symbol = symbol;
-        this.children = children;
+        // Copy the children, so that the caller cannot change a node whose hash code is cached
+        this.children = List.copyOf(children);
+
+        int hash = symbol.hashCode();
+        int size = 1;
+        int depth = 0;
+        boolean complete = symbol.isTerminal();
+        for (ASTNode child : this.children) {
+            hash = 31 * hash + child.hash;
+            size += child.size;
+            depth = Math.max(depth, child.depth);
+            complete &= child.complete;
+        }
+        this.hash = hash;
+        this.size = size;
+        this.depth = depth + 1;
+        this.complete = complete;
     }
 
     public Symbol getSymbol() {
@@ -26,7 +51,35 @@ public class ASTNode {
     }
 
     public boolean isComplete() {
-        return this.getSymbol().isTerminal() && this.getChildren().stream().allMatch(ASTNode::isComplete);
+        return complete;
+    }
+
+    /**
+     * @return the number of nodes in the tree, where each hole counts as one node
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return the number of nodes on the longest path from the root to a leaf
+     */
+    public int depth() {
+        return depth;
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof ASTNode)) return false;
+        ASTNode other = (ASTNode) o;
+        return hash == other.hash && size == other.size
+                && symbol.equals(other.symbol) && children.equals(other.children);
     }
 
     @Override
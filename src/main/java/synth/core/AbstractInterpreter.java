@@ -0,0 +1,212 @@
+package synth.core;
+
+import synth.cfg.Opcode;
+import synth.cfg.Terminal;
+
+/**
+ * Abstract interpreter over the interval and parity domains.
+ * It evaluates a partial program on an example, where a hole stands for any value,
+ * so that a program whose abstract value cannot contain the output of an example is refuted
+ * without calling the SMT solver. The domains follow the 32-bit semantics of the interpreter:
+ * an interval that may overflow becomes the full range, and parity is preserved by overflow.
+ */
+public class AbstractInterpreter {
+    /**
+     * abstract truth values of predicates
+     */
+    private static final int FALSE = 0;
+    private static final int TRUE = 1;
+    private static final int UNKNOWN = 2;
+
+    /**
+     * parity of an integer, or UNKNOWN if it can be both even and odd
+     */
+    private static final int EVEN = 0;
+    private static final int ODD = 1;
+
+    private static final Value TOP = new Value(Integer.MIN_VALUE, Integer.MAX_VALUE, UNKNOWN);
+
+    private final ExampleSet examples;
+
+    public AbstractInterpreter(ExampleSet examples) {
+        this.examples = examples;
+    }
+
+    /**
+     * An abstract integer value, i.e. an interval with a parity
+     */
+    static class Value {
+        final long lo;
+        final long hi;
+        final int parity;
+
+        Value(long lo, long hi, int parity) {
+            this.lo = lo;
+            this.hi = hi;
+            this.parity = parity;
+        }
+
+        static Value of(int value) {
+            return new Value(value, value, value & 1);
+        }
+
+        boolean isSingleton() {
+            return lo == hi;
+        }
+
+        boolean contains(int value) {
+            return lo <= value && value <= hi && (parity == UNKNOWN || parity == (value & 1));
+        }
+
+        @Override
+        public String toString() {
+            return "[" + lo + ", " + hi + "]" + (parity == EVEN ? " even" : parity == ODD ? " odd" : "");
+        }
+    }
+
+    /**
+     * Check if the node cannot satisfy some example
+     *
+     * @param node the AST node
+     * @return true if the abstract value of the node excludes the output of an example, false otherwise
+     */
+    public boolean refutes(ASTNode node) {
+        int[] outputs = examples.getOutputs();
+        for (int i = 0; i < outputs.length; i++) {
+            if (!evalExpr(node, i).contains(outputs[i])) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Evaluate the abstract value of an expression on an example
+     *
+     * @param node    the AST node of the expression
+     * @param example the index of the example
+     * @return the abstract value
+     */
+    Value evalExpr(ASTNode node, int example) {
+        switch (node.getSymbol().getOpcode()) {
+            case Opcode.ITE: {
+                int cond = evalPred(node.getChild(0), example);
+                if (cond == TRUE) {
+                    return evalExpr(node.getChild(1), example);
+                } else if (cond == FALSE) {
+                    return evalExpr(node.getChild(2), example);
+                }
+                return join(evalExpr(node.getChild(1), example), evalExpr(node.getChild(2), example));
+            }
+            case Opcode.ADD:
+                return add(evalExpr(node.getChild(0), example), evalExpr(node.getChild(1), example));
+            case Opcode.MULTIPLY:
+                return multiply(evalExpr(node.getChild(0), example), evalExpr(node.getChild(1), example));
+            case Opcode.VAR: {
+                int slot = examples.getSymbolTable().getSlot((Terminal) node.getSymbol());
+                if (slot < 0) {
+                    throw new RuntimeException("Unknown variable " + node);
+                }
+                return Value.of(examples.getColumn(slot)[example]);
+            }
+            case Opcode.CONST:
+                return Value.of(((Terminal) node.getSymbol()).getValue());
+            case Opcode.HOLE:
+                return TOP;
+            default:
+                throw new RuntimeException("Unknown symbol: " + node.getSymbol());
+        }
+    }
+
+    /**
+     * Evaluate the abstract truth value of a predicate on an example
+     *
+     * @param node    the AST node of the predicate
+     * @param example the index of the example
+     * @return TRUE, FALSE or UNKNOWN
+     */
+    int evalPred(ASTNode node, int example) {
+        switch (node.getSymbol().getOpcode()) {
+            case Opcode.LT: {
+                Value left = evalExpr(node.getChild(0), example);
+                Value right = evalExpr(node.getChild(1), example);
+                if (left.hi < right.lo) {
+                    return TRUE;
+                } else if (left.lo >= right.hi) {
+                    return FALSE;
+                }
+                return UNKNOWN;
+            }
+            case Opcode.EQ: {
+                Value left = evalExpr(node.getChild(0), example);
+                Value right = evalExpr(node.getChild(1), example);
+                if (left.isSingleton() && right.isSingleton()) {
+                    return left.lo == right.lo ? TRUE : FALSE;
+                } else if (left.hi < right.lo || right.hi < left.lo
+                        || (left.parity != UNKNOWN && right.parity != UNKNOWN && left.parity != right.parity)) {
+                    return FALSE;
+                }
+                return UNKNOWN;
+            }
+            case Opcode.AND: {
+                int left = evalPred(node.getChild(0), example);
+                if (left == FALSE) {
+                    return FALSE;
+                }
+                int right = evalPred(node.getChild(1), example);
+                return right == FALSE ? FALSE : left == TRUE && right == TRUE ? TRUE : UNKNOWN;
+            }
+            case Opcode.OR: {
+                int left = evalPred(node.getChild(0), example);
+                if (left == TRUE) {
+                    return TRUE;
+                }
+                int right = evalPred(node.getChild(1), example);
+                return right == TRUE ? TRUE : left == FALSE && right == FALSE ? FALSE : UNKNOWN;
+            }
+            case Opcode.NOT: {
+                int value = evalPred(node.getChild(0), example);
+                return value == UNKNOWN ? UNKNOWN : 1 - value;
+            }
+            case Opcode.HOLE:
+                return UNKNOWN;
+            default:
+                throw new RuntimeException("Unknown symbol: " + node.getSymbol());
+        }
+    }
+
+    private static Value join(Value a, Value b) {
+        return new Value(Math.min(a.lo, b.lo), Math.max(a.hi, b.hi), a.parity == b.parity ? a.parity : UNKNOWN);
+    }
+
+    private static Value add(Value a, Value b) {
+        if (a.isSingleton() && b.isSingleton()) {
+            return Value.of((int) a.lo + (int) b.lo);
+        }
+        int parity = a.parity == UNKNOWN || b.parity == UNKNOWN ? UNKNOWN : a.parity ^ b.parity;
+        return bound(a.lo + b.lo, a.hi + b.hi, parity);
+    }
+
+    private static Value multiply(Value a, Value b) {
+        if (a.isSingleton() && b.isSingleton()) {
+            return Value.of((int) a.lo * (int) b.lo);
+        }
+        int parity = a.parity == EVEN || b.parity == EVEN ? EVEN
+                : a.parity == ODD && b.parity == ODD ? ODD : UNKNOWN;
+        long p1 = a.lo * b.lo;
+        long p2 = a.lo * b.hi;
+        long p3 = a.hi * b.lo;
+        long p4 = a.hi * b.hi;
+        return bound(Math.min(Math.min(p1, p2), Math.min(p3, p4)), Math.max(Math.max(p1, p2), Math.max(p3, p4)), parity);
+    }
+
+    /**
+     * Build a value, which may overflow to any 32-bit integer if the interval exceeds the range of int
+     */
+    private static Value bound(long lo, long hi, int parity) {
+        if (lo < Integer.MIN_VALUE || hi > Integer.MAX_VALUE) {
+            return new Value(Integer.MIN_VALUE, Integer.MAX_VALUE, parity);
+        }
+        return new Value(lo, hi, parity);
+    }
+}
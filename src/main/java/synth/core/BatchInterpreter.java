@@ -0,0 +1,201 @@
+package synth.core;
+
+import synth.cfg.Opcode;
+import synth.cfg.Terminal;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * An interpreter that evaluates a program over all examples in a single tree walk.
+ * The inputs are stored column-wise, i.e. one int array per variable slot, and every operator is
+ * evaluated by a simple loop over the columns that the JIT compiler can vectorize.
+ */
+public class BatchInterpreter {
+
+    /**
+     * Build a batch interpreter over the inputs of the given examples
+     *
+     * @param examples a list of examples
+     * @return the batch interpreter
+     */
+    public static BatchInterpreter of(List<Example> examples) {
+        return new BatchInterpreter(ExampleSet.of(examples));
+    }
+
+    /**
+     * the examples whose inputs are stored as one column per variable slot
+     */
+    private final ExampleSet examples;
+    /**
+     * number of examples
+     */
+    private final int size;
+
+    public BatchInterpreter(ExampleSet examples) {
+        this.examples = examples;
+        this.size = examples.size();
+    }
+
+    public BatchInterpreter(BatchInterpreter other) {
+        this(other.examples);
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public ExampleSet getExampleSet() {
+        return examples;
+    }
+
+    /**
+     * Get the names of all variables in the order of their slots
+     *
+     * @return a list of variable names
+     */
+    public List<String> getVariables() {
+        return examples.getSymbolTable().getNames();
+    }
+
+    /**
+     * Evaluate an expression over all examples.
+     * Note that the returned array must not be modified as it may be shared with the input columns.
+     *
+     * @param expr the expression
+     * @return the value of the expression for each example
+     */
+    public int[] evalExpr(ASTNode expr) {
+        switch (expr.getSymbol().getOpcode()) {
+            case Opcode.ITE:
+                return evalIte(expr);
+            case Opcode.ADD:
+                return evalAdd(expr);
+            case Opcode.MULTIPLY:
+                return evalMultiply(expr);
+            case Opcode.VAR:
+                return evalVar(expr);
+            case Opcode.CONST:
+                return evalConst(expr);
+            default:
+                throw new RuntimeException("Cannot evaluate expression " + expr);
+        }
+    }
+
+    /**
+     * Evaluate a predicate over all examples
+     *
+     * @param pred the predicate
+     * @return the truth value of the predicate for each example
+     */
+    public boolean[] evalPred(ASTNode pred) {
+        switch (pred.getSymbol().getOpcode()) {
+            case Opcode.LT:
+                return evalLt(pred);
+            case Opcode.EQ:
+                return evalEq(pred);
+            case Opcode.AND:
+                return evalAnd(pred);
+            case Opcode.OR:
+                return evalOr(pred);
+            case Opcode.NOT:
+                return evalNot(pred);
+            default:
+                throw new RuntimeException("Cannot evaluate predicate " + pred);
+        }
+    }
+
+    public int[] evalIte(ASTNode ite) {
+        boolean[] cond = evalPred(ite.getChild(0));
+        int[] left = evalExpr(ite.getChild(1));
+        int[] right = evalExpr(ite.getChild(2));
+        int[] result = new int[size];
+        for (int i = 0; i < size; i++) {
+            result[i] = cond[i] ? left[i] : right[i];
+        }
+        return result;
+    }
+
+    public int[] evalAdd(ASTNode add) {
+        int[] left = evalExpr(add.getChild(0));
+        int[] right = evalExpr(add.getChild(1));
+        int[] result = new int[size];
+        for (int i = 0; i < size; i++) {
+            result[i] = left[i] + right[i];
+        }
+        return result;
+    }
+
+    public int[] evalMultiply(ASTNode multiply) {
+        int[] left = evalExpr(multiply.getChild(0));
+        int[] right = evalExpr(multiply.getChild(1));
+        int[] result = new int[size];
+        for (int i = 0; i < size; i++) {
+            result[i] = left[i] * right[i];
+        }
+        return result;
+    }
+
+    public int[] evalVar(ASTNode v) {
+        int slot = examples.getSymbolTable().getSlot((Terminal) v.getSymbol());
+        if (slot < 0) {
+            throw new RuntimeException("Unknown variable " + v);
+        }
+        return examples.getColumn(slot);
+    }
+
+    public int[] evalConst(ASTNode c) {
+        int[] result = new int[size];
+        Arrays.fill(result, ((Terminal) c.getSymbol()).getValue());
+        return result;
+    }
+
+    public boolean[] evalLt(ASTNode lt) {
+        int[] left = evalExpr(lt.getChild(0));
+        int[] right = evalExpr(lt.getChild(1));
+        boolean[] result = new boolean[size];
+        for (int i = 0; i < size; i++) {
+            result[i] = left[i] < right[i];
+        }
+        return result;
+    }
+
+    public boolean[] evalEq(ASTNode eq) {
+        int[] left = evalExpr(eq.getChild(0));
+        int[] right = evalExpr(eq.getChild(1));
+        boolean[] result = new boolean[size];
+        for (int i = 0; i < size; i++) {
+            result[i] = left[i] == right[i];
+        }
+        return result;
+    }
+
+    public boolean[] evalAnd(ASTNode and) {
+        boolean[] left = evalPred(and.getChild(0));
+        boolean[] right = evalPred(and.getChild(1));
+        boolean[] result = new boolean[size];
+        for (int i = 0; i < size; i++) {
+            result[i] = left[i] & right[i];
+        }
+        return result;
+    }
+
+    public boolean[] evalOr(ASTNode or) {
+        boolean[] left = evalPred(or.getChild(0));
+        boolean[] right = evalPred(or.getChild(1));
+        boolean[] result = new boolean[size];
+        for (int i = 0; i < size; i++) {
+            result[i] = left[i] | right[i];
+        }
+        return result;
+    }
+
+    public boolean[] evalNot(ASTNode not) {
+        boolean[] operand = evalPred(not.getChild(0));
+        boolean[] result = new boolean[size];
+        for (int i = 0; i < size; i++) {
+            result[i] = !operand[i];
+        }
+        return result;
+    }
+}
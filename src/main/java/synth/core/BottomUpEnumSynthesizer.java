@@ -0,0 +1,182 @@
+package synth.core;
+
+import synth.cfg.CFG;
+import synth.cfg.NonTerminal;
+import synth.cfg.Production;
+import synth.cfg.Symbol;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.logging.Logger;
+
+public class BottomUpEnumSynthesizer implements ISynthesizer {
+    private static final Logger LOGGER = Logger.getLogger(BottomUpEnumSynthesizer.class.getName());
+
+    // Non-terminal symbol whose programs are evaluated as predicates
+    private static final NonTerminal PREDICATE = new NonTerminal("B");
+
+    private final SearchMetrics metrics = new SearchMetrics();
+
+    @Override
+    public SearchMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Synthesize a program f(x, y, z) based on a context-free grammar and examples
+     * by enumerating programs bottom-up by size. Only one program is kept for each distinct
+     * output vector over the examples (observational equivalence), for both expressions and predicates.
+     *
+     * @param cfg      the context-free grammar
+     * @param examples a list of examples
+     * @param budget   the budget polled by the search
+     * @return the program or null to indicate synthesis failure
+     */
+    @Override
+    public Program synthesize(CFG cfg, List<Example> examples, SearchBudget budget) {
+        ExampleSet exampleSet = ExampleSet.of(examples);
+        Signature target = new Signature(exampleSet.getOutputs());
+
+        // Mapping from enumerated programs to their values over all examples. Every program is built
+        // from enumerated sub-programs, so only its root operator needs to be evaluated.
+        Map<ASTNode, int[]> exprValues = new HashMap<>();
+        Map<ASTNode, boolean[]> predValues = new HashMap<>();
+        BatchInterpreter interpreter = new BatchInterpreter(exampleSet) {
+            @Override
+            public int[] evalExpr(ASTNode expr) {
+                int[] values = exprValues.get(expr);
+                return values != null ? values : super.evalExpr(expr);
+            }
+
+            @Override
+            public boolean[] evalPred(ASTNode pred) {
+                boolean[] values = predValues.get(pred);
+                return values != null ? values : super.evalPred(pred);
+            }
+        };
+
+        // Mapping from non-terminals to the programs of each size (index 0 is unused)
+        Map<NonTerminal, List<List<ASTNode>>> bank = new HashMap<>();
+        // Mapping from non-terminals to the output vectors already covered by the bank
+        Map<NonTerminal, Set<Signature>> seen = new HashMap<>();
+        for (NonTerminal symbol : cfg.getNonTerminals()) {
+            List<List<ASTNode>> bySize = new ArrayList<>();
+            bySize.add(Collections.emptyList());
+            bank.put(symbol, bySize);
+            seen.put(symbol, new HashSet<>());
+        }
+
+        // The size grows up to the maximum size of the budget
+        for (int size = 1; budget.allowsSize(size); size++) {
+            // Programs of the current size only use sub-programs of smaller sizes,
+            // so they are collected first and added to the bank afterwards
+            Map<NonTerminal, List<ASTNode>> newPrograms = new HashMap<>();
+            for (NonTerminal symbol : cfg.getNonTerminals()) {
+                List<ASTNode> programs = new ArrayList<>();
+                for (Production production : cfg.getProductions(symbol)) {
+                    for (List<ASTNode> children : combine(production.getArgumentSymbols(), size - 1, bank)) {
+                        budget.check();
+                        ASTNode node = new ASTNode(production.getOperator(), children);
+                        metrics.incrementNodesExplored();
+                        metrics.incrementProgramsEvaluated();
+                        metrics.incrementInterpreterCalls();
+                        Signature signature;
+                        if (PREDICATE.equals(symbol)) {
+                            boolean[] values = interpreter.evalPred(node);
+                            predValues.put(node, values);
+                            signature = toSignature(values);
+                        } else {
+                            int[] values = interpreter.evalExpr(node);
+                            exprValues.put(node, values);
+                            signature = new Signature(values);
+                        }
+
+                        // Skip the program if an observationally equivalent program has been enumerated
+                        if (!seen.get(symbol).add(signature)) {
+                            exprValues.remove(node);
+                            predValues.remove(node);
+                            continue;
+                        }
+                        if (symbol.equals(cfg.getStartSymbol()) && signature.equals(target)) {
+                            LOGGER.fine("Found program of size " + size + ": " + node);
+                            return new Program(node);
+                        }
+                        programs.add(node);
+                        if (PREDICATE.equals(symbol)) {
+                            metrics.incrementDistinctPredicates();
+                        } else {
+                            metrics.incrementDistinctExpressions();
+                        }
+                    }
+                }
+                newPrograms.put(symbol, programs);
+            }
+
+            for (Map.Entry<NonTerminal, List<ASTNode>> entry : newPrograms.entrySet()) {
+                bank.get(entry.getKey()).add(entry.getValue());
+            }
+            LOGGER.fine("Enumerated all distinct programs of size " + size);
+        }
+        budget.checkExhausted();
+        return null;
+    }
+
+    /**
+     * Enumerate all lists of children for the argument symbols whose total size equals the given size
+     *
+     * @param argSymbols the argument symbols of a production
+     * @param size       the total size of the children
+     * @param bank       the programs enumerated so far
+     * @return a list of children lists
+     */
+    private List<List<ASTNode>> combine(List<Symbol> argSymbols, int size, Map<NonTerminal, List<List<ASTNode>>> bank) {
+        List<List<ASTNode>> combinations = new ArrayList<>();
+        if (argSymbols.isEmpty()) {
+            if (size == 0) {
+                combinations.add(Collections.emptyList());
+            }
+            return combinations;
+        }
+        combine(argSymbols, 0, size, bank, new ArrayList<>(), combinations);
+        return combinations;
+    }
+
+    private void combine(List<Symbol> argSymbols, int index, int remaining, Map<NonTerminal, List<List<ASTNode>>> bank,
+                         List<ASTNode> prefix, List<List<ASTNode>> combinations) {
+        List<List<ASTNode>> bySize = bank.get((NonTerminal) argSymbols.get(index));
+        boolean last = index == argSymbols.size() - 1;
+        // Each remaining argument needs at least one node
+        int minSize = last ? remaining : 1;
+        int maxSize = remaining - (argSymbols.size() - index - 1);
+        for (int size = minSize; size <= maxSize && size < bySize.size(); size++) {
+            for (ASTNode child : bySize.get(size)) {
+                prefix.add(child);
+                if (last) {
+                    combinations.add(new ArrayList<>(prefix));
+                } else {
+                    combine(argSymbols, index + 1, remaining - size, bank, prefix, combinations);
+                }
+                prefix.remove(prefix.size() - 1);
+            }
+        }
+    }
+
+    /**
+     * Encode the truth values of a predicate as an output vector
+     *
+     * @param values the truth value of the predicate for each example
+     * @return the output vector
+     */
+    private Signature toSignature(boolean[] values) {
+        int[] encoded = new int[values.length];
+        for (int i = 0; i < values.length; i++) {
+            encoded[i] = values[i] ? 1 : 0;
+        }
+        return new Signature(encoded);
+    }
+}
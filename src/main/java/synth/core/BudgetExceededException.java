@@ -0,0 +1,28 @@
+package synth.core;
+
+import java.util.concurrent.CancellationException;
+
+/**
+ * Thrown by a search that stops because it exceeded its budget or has been interrupted
+ */
+public class BudgetExceededException extends CancellationException {
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * The budget that stopped the search
+     */
+    public enum Reason {
+        DEADLINE, NODES, SIZE, MEMORY, INTERRUPTED
+    }
+
+    private final Reason reason;
+
+    public BudgetExceededException(Reason reason, String message) {
+        super(message);
+        this.reason = reason;
+    }
+
+    public Reason getReason() {
+        return reason;
+    }
+}
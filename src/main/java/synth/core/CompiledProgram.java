@@ -0,0 +1,81 @@
+package synth.core;
+
+import java.lang.invoke.MethodHandle;
+import java.util.List;
+
+/**
+ * A program compiled to JVM bytecode by the ProgramCompiler
+ */
+public class CompiledProgram {
+    private final Program program;
+    /**
+     * variable names in the order of the parameters of the compiled method
+     */
+    private final List<String> variables;
+    /**
+     * content of the class file the program was loaded from
+     */
+    private final byte[] classFile;
+    /**
+     * method handle of type (int[])int spreading the arguments to the compiled method
+     */
+    private final MethodHandle handle;
+
+    public CompiledProgram(Program program, List<String> variables, byte[] classFile, MethodHandle handle) {
+        this.program = program;
+        this.variables = variables;
+        this.classFile = classFile;
+        this.handle = handle;
+    }
+
+    public Program getProgram() {
+        return program;
+    }
+
+    public List<String> getVariables() {
+        return variables;
+    }
+
+    public byte[] getClassFile() {
+        return classFile;
+    }
+
+    /**
+     * Evaluate the compiled program
+     *
+     * @param arguments the values of the variables in the order of getVariables()
+     * @return the value of the program expression
+     */
+    public int evaluate(int[] arguments) {
+        try {
+            return (int) handle.invokeExact(arguments);
+        } catch (Throwable e) {
+            throw new RuntimeException("Cannot evaluate compiled program " + program, e);
+        }
+    }
+
+    /**
+     * Check if the compiled program satisfies all the examples, stopping at the first failing example
+     *
+     * @param interpreter the batch interpreter over the inputs of the examples
+     * @param outputs     the expected output of each example
+     * @return true if the program satisfies all examples, false otherwise
+     */
+    public boolean isValid(BatchInterpreter interpreter, int[] outputs) {
+        ExampleSet examples = interpreter.getExampleSet();
+        int[][] columns = new int[variables.size()][];
+        for (int j = 0; j < columns.length; j++) {
+            columns[j] = examples.getColumn(examples.getSymbolTable().getSlot(variables.get(j)));
+        }
+        int[] arguments = new int[columns.length];
+        for (int i = 0; i < outputs.length; i++) {
+            for (int j = 0; j < columns.length; j++) {
+                arguments[j] = columns[j][i];
+            }
+            if (evaluate(arguments) != outputs[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,14 @@
+package synth.core;
+
+/**
+ * A cost model that orders the partial programs of a work list, cheaper programs being expanded first
+ */
+public interface CostModel {
+
+    /**
+     * @param node a partial or complete program
+     * @return the cost of the program
+     */
+    public int cost(ASTNode node);
+
+}
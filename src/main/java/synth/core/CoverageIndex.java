@@ -0,0 +1,76 @@
+package synth.core;
+
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Index of nodes by the examples they satisfy, where the satisfied examples are a mask of example indices.
+ * Each mask is owned by at most one node, the first one added, so distinctness is checked by a hash lookup.
+ * The masks must not be modified once added.
+ */
+public class CoverageIndex {
+    /**
+     * masks of the nodes in the order they were added
+     */
+    private final Map<ASTNode, BitSet> nodeToMask = new LinkedHashMap<>();
+    private final Map<BitSet, ASTNode> maskToNode = new HashMap<>();
+    /**
+     * union of the masks of all nodes
+     */
+    private final BitSet covered = new BitSet();
+
+    /**
+     * Add the node if no other node satisfies the same examples
+     *
+     * @param node the AST node
+     * @param mask the examples satisfied by the node
+     * @return true if the node was added, false if the mask is empty or owned by another node
+     */
+    public boolean add(ASTNode node, BitSet mask) {
+        if (mask.isEmpty() || maskToNode.putIfAbsent(mask, node) != null) {
+            return false;
+        }
+        nodeToMask.put(node, mask);
+        covered.or(mask);
+        return true;
+    }
+
+    public BitSet getMask(ASTNode node) {
+        return nodeToMask.get(node);
+    }
+
+    /**
+     * @param mask the examples
+     * @return the node satisfying exactly the examples, or null if none
+     */
+    public ASTNode getNode(BitSet mask) {
+        return maskToNode.get(mask);
+    }
+
+    /**
+     * @return the nodes with their masks in the order they were added
+     */
+    public Set<Map.Entry<ASTNode, BitSet>> entries() {
+        return Collections.unmodifiableMap(nodeToMask).entrySet();
+    }
+
+    public Set<ASTNode> nodes() {
+        return Collections.unmodifiableSet(nodeToMask.keySet());
+    }
+
+    /**
+     * @param count the number of examples
+     * @return true if every example is satisfied by some node
+     */
+    public boolean covers(int count) {
+        return covered.cardinality() == count;
+    }
+
+    public int size() {
+        return nodeToMask.size();
+    }
+}
@@ -0,0 +1,133 @@
+package synth.core;
+
+import synth.cfg.Terminal;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Unifier that builds a decision tree of Ite nodes.
+ * The examples are split by the predicate with the highest information gain, where the label of an example
+ * is the expression satisfying it, until an expression satisfies all examples of a leaf.
+ * As in ID3, the best split is never revisited: the examples no predicate tells apart end up in the same leaf
+ * of any decision tree, so if they cannot be satisfied by one expression, no decision tree exists.
+ */
+public class DecisionTreeUnifier implements Unifier {
+
+    @Override
+    public ASTNode unify(CoverageIndex exprIndex, CoverageIndex predIndex, BitSet examples) {
+        // Return an expression if it satisfies all examples as no predicate is needed
+        for (Map.Entry<ASTNode, BitSet> exprEntry : exprIndex.entries()) {
+            if (covers(exprEntry.getValue(), examples)) {
+                return exprEntry.getKey();
+            }
+        }
+
+        // Otherwise, split the examples by the predicate with the highest information gain
+        Split split = bestSplit(exprIndex, predIndex, examples);
+        if (split == null) {
+            return null;
+        }
+        ASTNode thenNode = unify(exprIndex, predIndex, split.positive);
+        if (thenNode == null) {
+            return null;
+        }
+        ASTNode elseNode = unify(exprIndex, predIndex, split.negative);
+        if (elseNode == null) {
+            return null;
+        }
+        return NodeFactory.create(new Terminal("Ite"), List.of(split.pred, thenNode, elseNode));
+    }
+
+    /**
+     * A split of examples by a predicate
+     */
+    private static class Split {
+        private final ASTNode pred;
+        private final BitSet positive;
+        private final BitSet negative;
+
+        Split(ASTNode pred, BitSet positive, BitSet negative) {
+            this.pred = pred;
+            this.positive = positive;
+            this.negative = negative;
+        }
+    }
+
+    /**
+     * Find the predicate with the highest information gain among those splitting the examples
+     * into two non-empty subsets, the first one in enumeration order on ties
+     *
+     * @return the best split, or null if no predicate splits the examples
+     */
+    private Split bestSplit(CoverageIndex exprIndex, CoverageIndex predIndex, BitSet examples) {
+        // Restrict the expressions to the examples once, dropping those satisfying none of them
+        List<BitSet> labels = new ArrayList<>();
+        for (Map.Entry<ASTNode, BitSet> exprEntry : exprIndex.entries()) {
+            BitSet covered = (BitSet) exprEntry.getValue().clone();
+            covered.and(examples);
+            if (!covered.isEmpty()) {
+                labels.add(covered);
+            }
+        }
+        BitSet scratch = new BitSet();
+        int size = examples.cardinality();
+
+        Split best = null;
+        // Minimizing the weighted entropy of the subsets maximizes the information gain
+        double bestRemainder = Double.POSITIVE_INFINITY;
+        for (Map.Entry<ASTNode, BitSet> predEntry : predIndex.entries()) {
+            BitSet positive = (BitSet) examples.clone();
+            positive.and(predEntry.getValue());
+            int positiveSize = positive.cardinality();
+            if (positiveSize == 0 || positiveSize == size) {
+                continue;
+            }
+            BitSet negative = (BitSet) examples.clone();
+            negative.andNot(predEntry.getValue());
+            double remainder = positiveSize * entropy(labels, positive, scratch)
+                    + (size - positiveSize) * entropy(labels, negative, scratch);
+            if (remainder < bestRemainder) {
+                bestRemainder = remainder;
+                best = new Split(predEntry.getKey(), positive, negative);
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Entropy of the examples labelled by expressions, where an example satisfied by several expressions
+     * counts towards each of them
+     *
+     * @param labels   the examples satisfied by each expression
+     * @param examples the examples
+     * @param scratch  a bit set to intersect into
+     */
+    private static double entropy(List<BitSet> labels, BitSet examples, BitSet scratch) {
+        int[] counts = new int[labels.size()];
+        int total = 0;
+        for (int i = 0; i < counts.length; i++) {
+            scratch.clear();
+            scratch.or(labels.get(i));
+            scratch.and(examples);
+            counts[i] = scratch.cardinality();
+            total += counts[i];
+        }
+        double entropy = 0;
+        for (int count : counts) {
+            if (count > 0) {
+                double p = (double) count / total;
+                entropy -= p * Math.log(p);
+            }
+        }
+        return entropy;
+    }
+
+    private static boolean covers(BitSet mask, BitSet examples) {
+        BitSet uncovered = (BitSet) examples.clone();
+        uncovered.andNot(mask);
+        return uncovered.isEmpty();
+    }
+}
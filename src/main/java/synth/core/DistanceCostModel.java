@@ -0,0 +1,100 @@
+package synth.core;
+
+import synth.cfg.Opcode;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A cost model that adds a heuristic distance to the targets to the cost of a base model.
+ * The distance of a program is the smallest fraction of examples that one of its complete expressions
+ * gets wrong, scaled by a weight: programs that already contain an expression close to the targets are
+ * expanded first. Programs without any complete expression get the full weight.
+ */
+public class DistanceCostModel implements CostModel {
+    /**
+     * Default maximum number of cached complete expressions
+     */
+    private static final int DEFAULT_CACHE_SIZE = 1 << 16;
+
+    private final CostModel base;
+    private final BatchInterpreter interpreter;
+    private final int[] outputs;
+    private final int weight;
+    /**
+     * mapping from complete expressions to the number of examples they get wrong,
+     * the least recently used one is evicted once the cache is full
+     */
+    private final Map<ASTNode, Integer> mismatches;
+
+    public DistanceCostModel(CostModel base, ExampleSet examples, int weight) {
+        this(base, examples, weight, DEFAULT_CACHE_SIZE);
+    }
+
+    /**
+     * @param base      the cost model the distance is added to
+     * @param examples  the examples
+     * @param weight    the weight of the distance
+     * @param cacheSize the maximum number of cached complete expressions
+     */
+    public DistanceCostModel(CostModel base, ExampleSet examples, int weight, int cacheSize) {
+        this.base = base;
+        this.interpreter = new BatchInterpreter(examples);
+        this.outputs = examples.getOutputs();
+        this.weight = weight;
+        this.mismatches = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<ASTNode, Integer> eldest) {
+                return size() > cacheSize;
+            }
+        });
+    }
+
+    /**
+     * @return the number of cached complete expressions
+     */
+    int getCacheSize() {
+        return mismatches.size();
+    }
+
+    @Override
+    public int cost(ASTNode node) {
+        int minMismatches = minMismatches(node);
+        int distance = outputs.length == 0 || minMismatches == Integer.MAX_VALUE
+                ? weight : (weight * minMismatches + outputs.length - 1) / outputs.length;
+        return base.cost(node) + distance;
+    }
+
+    /**
+     * @param node a partial or complete program
+     * @return the smallest number of wrong examples among its complete expressions, or Integer.MAX_VALUE if none
+     */
+    private int minMismatches(ASTNode node) {
+        int opcode = node.getSymbol().getOpcode();
+        if (node.isComplete() && !Opcode.isPredicate(opcode)) {
+            Integer count = mismatches.get(node);
+            if (count == null) {
+                count = countMismatches(node);
+                mismatches.put(node, count);
+            }
+            return count;
+        }
+        int min = Integer.MAX_VALUE;
+        for (ASTNode child : node.getChildren()) {
+            min = Math.min(min, minMismatches(child));
+        }
+        return min;
+    }
+
+    private int countMismatches(ASTNode expr) {
+        int[] values = interpreter.evalExpr(expr);
+        int count = 0;
+        for (int i = 0; i < values.length; i++) {
+            if (values[i] != outputs[i]) {
+                count++;
+            }
+        }
+        return count;
+    }
+}
@@ -1,71 +1,106 @@
 package synth.core;
 
-import java.util.HashMap;
-import java.util.HashSet;
+import java.util.BitSet;
+import java.util.LinkedList;
 import java.util.List;
-import java.util.Map;
-import java.util.Set;
 import java.util.logging.Logger;
 
 import synth.cfg.CFG;
-import synth.cfg.Terminal;
+import synth.jfr.NextDistinctNodeEvent;
+import synth.jfr.UnifyEvent;
 
 import static synth.core.Utils.isValid;
-import static synth.core.Utils.isSatisfiable;
 
 public class DivideAndConquerSynthesizer implements ISynthesizer {
     private static final Logger LOGGER = Logger.getLogger(DivideAndConquerSynthesizer.class.getName());
 
+    private final WorkListFactory workListFactory;
+    private final Unifier unifier;
+    private final SymmetryBreaking symmetryBreaking;
+    private final SearchMetrics metrics = new SearchMetrics();
+
+    public DivideAndConquerSynthesizer() {
+        this((cfg, examples) -> new LinkedList<>());
+    }
+
+    /**
+     * @param workListFactory the factory of the work lists of the expression and predicate enumerators
+     */
+    public DivideAndConquerSynthesizer(WorkListFactory workListFactory) {
+        this(workListFactory, new GreedyUnifier());
+    }
+
+    /**
+     * @param workListFactory the factory of the work lists of the expression and predicate enumerators
+     * @param unifier         the strategy to unify the expressions and predicates
+     */
+    public DivideAndConquerSynthesizer(WorkListFactory workListFactory, Unifier unifier) {
+        this(workListFactory, unifier, SymmetryBreaking.ALL);
+    }
+
+    /**
+     * @param workListFactory  the factory of the work lists of the expression and predicate enumerators
+     * @param unifier          the strategy to unify the expressions and predicates
+     * @param symmetryBreaking the symmetry-breaking rules applied when expanding nodes
+     */
+    public DivideAndConquerSynthesizer(WorkListFactory workListFactory, Unifier unifier, SymmetryBreaking symmetryBreaking) {
+        this.workListFactory = workListFactory;
+        this.unifier = unifier;
+        this.symmetryBreaking = symmetryBreaking;
+    }
+
     @Override
-    public Program synthesize(CFG cfg, List<Example> examples) {
-        // Initialize the expression and predicate enumerators
-        Enumerator exprEnumerator = new ExpressionEnumerator(cfg);
-        Enumerator predEnumerator = new PredicateEnumerator(cfg);
-
-        // Initialize the mapping from expressions to satisfied examples
-        Map<ASTNode, Set<Example>> exprToExamples = new HashMap<>();
-        Map<Example, Boolean> coveredByExpr = new HashMap<>();
-        // Initialize the mapping from predicates to satisfied examples
-        Map<ASTNode, Set<Example>> predToExamples = new HashMap<>();
-        Map<Example, Boolean> coveredByPred = new HashMap<>();
-        // Initialize the covered statuses for each example
-        for (Example example : examples) {
-            coveredByExpr.put(example, false);
-            coveredByPred.put(example, false);
-        }
+    public SearchMetrics getMetrics() {
+        return metrics;
+    }
+
+    @Override
+    public Program synthesize(CFG cfg, List<Example> examples, SearchBudget budget) {
+        ExampleSet exampleSet = ExampleSet.of(examples);
+        BatchInterpreter interpreter = new BatchInterpreter(exampleSet);
+        // Initialize the expression and predicate enumerators, which skip the nodes with an already seen output or truth vector
+        Enumerator exprEnumerator = new ExpressionEnumerator(cfg, workListFactory.create(cfg, exampleSet), interpreter, metrics,
+                symmetryBreaking);
+        Enumerator predEnumerator = new PredicateEnumerator(cfg, workListFactory.create(cfg, exampleSet), interpreter, metrics,
+                symmetryBreaking);
+
+        return search(exprEnumerator, predEnumerator, interpreter, exampleSet, budget);
+    }
+
+    private Program search(Enumerator exprEnumerator, Enumerator predEnumerator, BatchInterpreter interpreter,
+                           ExampleSet exampleSet, SearchBudget budget) {
+        // Initialize the indices of expressions and predicates by satisfied examples
+        CoverageIndex exprIndex = new CoverageIndex();
+        CoverageIndex predIndex = new CoverageIndex();
+        int[] outputs = exampleSet.getOutputs();
 
         // Enumerate expressions and predicates until each examples is covered by at least one expression and one predicate
-        while (coveredByExpr.containsValue(false)) {
-            ASTNode node = nextDistinctNode(exprEnumerator, exprToExamples, examples);
-            for (Example example : exprToExamples.get(node)) {
-                coveredByExpr.put(example, true);
-                LOGGER.fine("Expression " + node + " covers example: " + example);
-            }
+        while (!exprIndex.covers(outputs.length)) {
+            ASTNode node = nextDistinctNode(exprEnumerator, exprIndex, outputs, interpreter, budget);
+            LOGGER.fine("Expression " + node + " covers examples: " + exprIndex.getMask(node));
         }
-        while (coveredByPred.containsValue(false)) {
-            ASTNode node = nextDistinctNode(predEnumerator, predToExamples, examples);
-            for (Example example : predToExamples.get(node)) {
-                coveredByPred.put(example, true);
-                LOGGER.fine("Predicate " + node + " covers example: " + example);
-            }
+        while (!predIndex.covers(outputs.length)) {
+            ASTNode node = nextDistinctNode(predEnumerator, predIndex, outputs, interpreter, budget);
+            LOGGER.fine("Predicate " + node + " covers examples: " + predIndex.getMask(node));
         }
 
         Program program = null;
-        Set<Example> examplesSet = new HashSet<>(examples);
+        BitSet all = new BitSet(outputs.length);
+        all.set(0, outputs.length);
         do {
-            LOGGER.fine("Set of expressions: " + exprToExamples.keySet());
-            LOGGER.fine("Set of predicates: " + predToExamples.keySet());
-            ASTNode node = unify(exprToExamples, predToExamples, examplesSet);
+            LOGGER.fine("Set of expressions: " + exprIndex.nodes());
+            LOGGER.fine("Set of predicates: " + predIndex.nodes());
+            ASTNode node = unify(unifier, exprIndex, predIndex, all);
             if (node != null) {
                 program = new Program(node);
             } else {
-                ASTNode expr = nextDistinctNode(exprEnumerator, exprToExamples, examples);
-                ASTNode pred = nextDistinctNode(predEnumerator, predToExamples, examples);
+                ASTNode expr = nextDistinctNode(exprEnumerator, exprIndex, outputs, interpreter, budget);
+                ASTNode pred = nextDistinctNode(predEnumerator, predIndex, outputs, interpreter, budget);
                 LOGGER.fine("Unification failed. Generating an additional expression and predicate: " + expr + " & " + pred);
             }
         } while (program == null);
 
-        assert isValid(program, examples) : "Unexpected validation failure for the synthesized program: " + program;
+        assert isValid(program, exampleSet.getExamples()) : "Unexpected validation failure for the synthesized program: " + program;
         return program;
     }
 
@@ -73,91 +108,106 @@ public class DivideAndConquerSynthesizer implements ISynthesizer {
      * Enumerate the next distinct node for the given enumerator
      * 
      * @param enumerator
-     * @param nodeToExamples
-     * @param examples
+     * @param index       the index of the nodes enumerated so far by satisfied examples
+     * @param outputs     the expected output of each example
+     * @param interpreter the batch interpreter over the inputs of the examples
+     * @param budget      the budget polled by the enumerator
      * @return the next distinct node or throw an exception if no node can be enumerated
      */
-    private ASTNode nextDistinctNode(Enumerator enumerator, Map<ASTNode, Set<Example>> nodeToExamples, List<Example> examples) {
-        boolean enumerated = false;
-        ASTNode node = null;
-
-        while (!enumerated) {
-            node = enumerator.enumerate();
+    private ASTNode nextDistinctNode(Enumerator enumerator, CoverageIndex index, int[] outputs,
+                                     BatchInterpreter interpreter, SearchBudget budget) {
+        NextDistinctNodeEvent event = new NextDistinctNodeEvent();
+        event.begin();
+        for (int count = 1; ; count++) {
+            ASTNode node = enumerator.enumerate(budget);
             if (node == null) {
                 throw new RuntimeException("Cannot enumerate any node");
             }
     
-            // Check if the node can satisfy any example
-            Set<Example> satisfiedExamples = new HashSet<>();
-            for (Example example : examples) {
+            // Check if the node can satisfy any example by evaluating it over all examples at once
+            BitSet satisfiedExamples = satisfiedExamples(node, enumerator, interpreter, outputs);
+
+            // The satisfied examples should be distinct from the examples satisfied by other nodes
+            if (index.add(node, satisfiedExamples)) {
                 if (enumerator instanceof ExpressionEnumerator) {
-                    if (isValid(new Program(node), List.of(example))) {
-                        satisfiedExamples.add(example);
-                    }
-                } else if (enumerator instanceof PredicateEnumerator) {
-                    if (isSatisfiable(node, List.of(example))) {
-                        satisfiedExamples.add(example);
-                    }
+                    metrics.incrementDistinctExpressions();
                 } else {
-                    throw new RuntimeException("Unknown enumerator: " + enumerator);
+                    metrics.incrementDistinctPredicates();
                 }
-            }
-
-            // The satisfied examples should be distinct from the examples satisfied by other nodes
-            if (!satisfiedExamples.isEmpty() && !nodeToExamples.values().contains(satisfiedExamples)) {
-                nodeToExamples.put(node, satisfiedExamples);
-                enumerated = true;
+                if (event.shouldCommit()) {
+                    event.kind = enumerator instanceof ExpressionEnumerator ? "expression" : "predicate";
+                    event.nodeSize = node.size();
+                    event.exampleCount = outputs.length;
+                    event.enumeratedCount = count;
+                    event.commit();
+                }
+                return node;
             }
         }
+    }
 
+    /**
+     * Unify the expressions and predicates into a program satisfying the examples, recording the unification as a JFR event
+     *
+     * @param unifier   the strategy to unify the expressions and predicates
+     * @param exprIndex the index of the expressions by satisfied examples
+     * @param predIndex the index of the predicates by satisfied examples
+     * @param examples  the examples to satisfy
+     * @return the unified node or null if the unification failed
+     */
+    static ASTNode unify(Unifier unifier, CoverageIndex exprIndex, CoverageIndex predIndex, BitSet examples) {
+        UnifyEvent event = new UnifyEvent();
+        event.begin();
+        ASTNode node = unifier.unify(exprIndex, predIndex, examples);
+        if (event.shouldCommit()) {
+            event.expressionCount = exprIndex.size();
+            event.predicateCount = predIndex.size();
+            event.exampleCount = examples.cardinality();
+            event.nodeSize = node == null ? 0 : node.size();
+            event.commit();
+        }
         return node;
     }
 
     /**
-     * Unify the expressions and predicates to an AST node that can satisfy the given examples
-     * 
-     * @param exprToExamples
-     * @param predToExamples
-     * @param examples
-     * @return the unified AST node if exists, otherwise null
+     * Evaluate the node over all examples at once
+     *
+     * @param node        the enumerated node
+     * @param enumerator  the enumerator of the node
+     * @param interpreter the batch interpreter over the inputs of the examples
+     * @param outputs     the expected output of each example
+     * @return the examples whose output is the value of an expression, or where a predicate holds
      */
-    private ASTNode unify(Map<ASTNode, Set<Example>> exprToExamples, Map<ASTNode, Set<Example>> predToExamples, Set<Example> examples) {
-        // Iterate over all expressions and unify them with predicates if possible
-        for (Map.Entry<ASTNode, Set<Example>> expEntry : exprToExamples.entrySet()) {
-            ASTNode expr = expEntry.getKey();
-            Set<Example> satisfiedExamples = expEntry.getValue();
-            Set<Example> unsatisfiedExamples = new HashSet<>();
-            for (Example example : examples) {
-                if (!satisfiedExamples.contains(example)) {
-                    unsatisfiedExamples.add(example);
+    static BitSet satisfiedExamples(ASTNode node, Enumerator enumerator, BatchInterpreter interpreter, int[] outputs) {
+        BitSet satisfiedExamples = new BitSet(outputs.length);
+        // Reuse the signature of the node if the enumerator has evaluated it
+        Signature signature = enumerator.getSignature();
+        if (enumerator instanceof ExpressionEnumerator) {
+            int[] values = signature != null ? signature.getValues() : interpreter.evalExpr(node);
+            for (int i = 0; i < values.length; i++) {
+                if (values[i] == outputs[i]) {
+                    satisfiedExamples.set(i);
                 }
             }
-
-            // Skip the expression if it cannot satisfy any example
-            if (unsatisfiedExamples.equals(examples)) {
-                continue;
-            }
-
-            // Return the expression if it satisfies all examples as no predicate is needed
-            if (unsatisfiedExamples.isEmpty()) {
-                return expr;
-            }
-
-            // Otherwise, check if the expression can be unified with a predicate
-            for (Map.Entry<ASTNode, Set<Example>> predEntry : predToExamples.entrySet()) {
-                // The unified predicate should satisfy the same set of examples as the expression
-                if (predEntry.getValue().equals(satisfiedExamples)) {
-                    ASTNode child = unify(exprToExamples, predToExamples, unsatisfiedExamples);
-                    if (child != null) {
-                        ASTNode pred = predEntry.getKey();
-                        return new ASTNode(new Terminal("Ite"), List.of(pred, expr, child));
-                    } else {
-                        break;
+        } else if (enumerator instanceof PredicateEnumerator) {
+            if (signature != null) {
+                int[] truths = signature.getValues();
+                for (int i = 0; i < truths.length; i++) {
+                    if (truths[i] == 1) {
+                        satisfiedExamples.set(i);
+                    }
+                }
+            } else {
+                boolean[] values = interpreter.evalPred(node);
+                for (int i = 0; i < values.length; i++) {
+                    if (values[i]) {
+                        satisfiedExamples.set(i);
                     }
                 }
             }
+        } else {
+            throw new RuntimeException("Unknown enumerator: " + enumerator);
         }
-
-        return null;
+        return satisfiedExamples;
     }
 }
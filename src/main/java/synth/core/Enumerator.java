@@ -1,16 +1,44 @@
 package synth.core;
 
+import java.util.HashSet;
 import java.util.Queue;
+import java.util.Set;
 
 import synth.cfg.CFG;
 
 public abstract class Enumerator {
     private CFG cfg;
     private Queue<ASTNode> workList;
+    private final SymmetryBreaking symmetryBreaking;
+    /**
+     * interpreter computing the signatures of nodes, or null to enumerate all complete nodes
+     */
+    private BatchInterpreter interpreter;
+    /**
+     * signatures of the nodes enumerated so far
+     */
+    private final Set<Signature> seen = new HashSet<>();
+    /**
+     * signature of the last enumerated node
+     */
+    private Signature signature;
+    private final SearchMetrics metrics;
 
-    public Enumerator(CFG cfg, Queue<ASTNode> workList) {
+    /**
+     * @param cfg              the context-free grammar
+     * @param workList         an empty work list
+     * @param interpreter      the batch interpreter over the inputs of the examples to skip the nodes whose signature
+     *                         was already enumerated, or null to enumerate all complete nodes
+     * @param metrics          the counters updated by the enumeration, e.g. those of the synthesizer
+     * @param symmetryBreaking the symmetry-breaking rules applied when expanding nodes
+     */
+    public Enumerator(CFG cfg, Queue<ASTNode> workList, BatchInterpreter interpreter, SearchMetrics metrics,
+                      SymmetryBreaking symmetryBreaking) {
         this.cfg = cfg;
         this.workList = workList;
+        this.symmetryBreaking = symmetryBreaking;
+        this.interpreter = interpreter;
+        this.metrics = metrics;
     }
 
     public CFG getCFG() {
@@ -21,22 +49,72 @@ public abstract class Enumerator {
         return workList;
     }
 
+    public SearchMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * @return the signature of the last enumerated node, or null if nodes are not deduplicated
+     */
+    public Signature getSignature() {
+        return signature;
+    }
+
     /**
      * Enumerate the next AST node that is complete
      * 
      * @return a complete AST node
      */
     public ASTNode enumerate() {
+        return enumerate(SearchBudget.unlimited());
+    }
+
+    /**
+     * Enumerate the next AST node that is complete within a budget
+     *
+     * @param budget the budget polled for each node
+     * @return a complete AST node or null if all nodes have been enumerated
+     * @throws BudgetExceededException if the enumeration exceeded its budget or has been interrupted
+     */
+    public ASTNode enumerate(SearchBudget budget) {
         while (!workList.isEmpty()) {
+            budget.check();
             ASTNode node = workList.remove();
+            metrics.incrementNodesExplored();
+
+            // Skip the node if its programs exceed the maximum size
+            if (!budget.allows(node)) {
+                continue;
+            }
 
             if (node.isComplete()) {
-                return node;
+                if (interpreter == null) {
+                    return node;
+                }
+                // Skip the node if it is observationally equivalent to an enumerated node
+                signature = signature(node, interpreter);
+                metrics.incrementProgramsEvaluated();
+                metrics.incrementInterpreterCalls();
+                if (seen.add(signature)) {
+                    return node;
+                }
             } else {
-                workList.addAll(Utils.expand(node, cfg));
+                workList.addAll(Utils.expand(node, cfg, symmetryBreaking));
+                metrics.incrementNodesExpanded();
+                metrics.updateWorkListPeak(workList.size());
             }
         }
 
+        budget.checkExhausted();
         return null;
     }
+
+    /**
+     * Evaluate the signature of a complete node over all examples
+     *
+     * @param node        the complete AST node
+     * @param interpreter the batch interpreter over the inputs of the examples
+     * @return the signature of the node
+     */
+    protected abstract Signature signature(ASTNode node, BatchInterpreter interpreter);
 }
@@ -1,24 +1,70 @@
 package synth.core;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 
 public class Example {
     /**
-     * Input: mapping from variable names to their values
+     * Mapping from variable names to the slots of the input values
      */
-    private final Map<String, Integer> input;
+    private final SymbolTable symbols;
+    /**
+     * Input: the value of each variable, indexed by its slot
+     */
+    private final int[] values;
     /**
      * Output value
      */
     private final int output;
+    private final int hash;
 
-    public Example(Map<String, Integer> input, int output) {
-        this.input = input;
+    public Example(SymbolTable symbols, int[] values, int output) {
+        this.symbols = symbols;
+        this.values = values;
         this.output = output;
+        this.hash = symbols.hashCode() * 31 + Arrays.hashCode(values) ^ output;
+    }
+
+    public Example(Map<String, Integer> input, int output) {
+        this(toSymbolTable(input), toValues(input), output);
+    }
+
+    public SymbolTable getSymbolTable() {
+        return symbols;
+    }
+
+    /**
+     * @return the input values indexed by the slots of the symbol table, which must not be modified
+     */
+    public int[] getValues() {
+        return values;
+    }
+
+    /**
+     * @param name the variable name
+     * @return the input value of the variable
+     */
+    public int getValue(String name) {
+        int slot = symbols.getSlot(name);
+        if (slot < 0) {
+            throw new RuntimeException("Missing variable " + name + " in example " + this);
+        }
+        return values[slot];
     }
 
+    /**
+     * @return mapping from variable names to their values
+     */
     public Map<String, Integer> getInput() {
+        Map<String, Integer> input = new HashMap<>();
+        for (int i = 0; i < values.length; i++) {
+            input.put(symbols.getNames().get(i), values[i]);
+        }
         return input;
     }
 
@@ -26,20 +72,38 @@ public class Example {
         return output;
     }
 
+    private static SymbolTable toSymbolTable(Map<String, Integer> input) {
+        List<String> names = new ArrayList<>(input.keySet());
+        Collections.sort(names);
+        return new SymbolTable(names);
+    }
+
+    private static int[] toValues(Map<String, Integer> input) {
+        List<String> names = new ArrayList<>(input.keySet());
+        Collections.sort(names);
+        int[] values = new int[names.size()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = input.get(names.get(i));
+        }
+        return values;
+    }
+
     @Override
     public int hashCode() {
-        return input.hashCode() ^ output;
+        return hash;
     }
 
     @Override
     public boolean equals(Object o) {
+        if (this == o) return true;
         if (!(o instanceof Example)) return false;
         Example other = (Example) o;
-        return Objects.equals(input, other.input) && output == other.output;
+        return hash == other.hash && output == other.output
+                && Objects.equals(symbols, other.symbols) && Arrays.equals(values, other.values);
     }
 
     @Override
     public String toString() {
-        return String.format("%s -> %s", input, output);
+        return String.format("%s -> %s", getInput(), output);
     }
 }
@@ -0,0 +1,98 @@
+package synth.core;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * A list of examples stored column-wise: one primitive int array per variable slot and one for the outputs
+ */
+public class ExampleSet {
+
+    /**
+     * Build an example set from a list of examples. The symbol table shared by the examples is reused,
+     * otherwise a symbol table over all their variables is built.
+     *
+     * @param examples a list of examples
+     * @return the example set
+     */
+    public static ExampleSet of(List<Example> examples) {
+        SymbolTable symbols = examples.isEmpty() ? new SymbolTable(Collections.emptyList()) : examples.get(0).getSymbolTable();
+        for (Example example : examples) {
+            if (!symbols.equals(example.getSymbolTable())) {
+                symbols = mergeSymbolTables(examples);
+                break;
+            }
+        }
+        return new ExampleSet(symbols, examples);
+    }
+
+    private static SymbolTable mergeSymbolTables(List<Example> examples) {
+        Set<String> names = new LinkedHashSet<>();
+        for (Example example : examples) {
+            names.addAll(example.getSymbolTable().getNames());
+        }
+        return new SymbolTable(new ArrayList<>(names));
+    }
+
+    private final SymbolTable symbols;
+    private final List<Example> examples;
+    /**
+     * the values of each variable in every example, indexed by slot and then by example
+     */
+    private final int[][] columns;
+    /**
+     * the expected output of every example
+     */
+    private final int[] outputs;
+
+    public ExampleSet(SymbolTable symbols, List<Example> examples) {
+        this.symbols = symbols;
+        this.examples = examples;
+        this.columns = new int[symbols.size()][examples.size()];
+        this.outputs = new int[examples.size()];
+        for (int i = 0; i < examples.size(); i++) {
+            Example example = examples.get(i);
+            if (symbols.equals(example.getSymbolTable())) {
+                int[] values = example.getValues();
+                for (int slot = 0; slot < values.length; slot++) {
+                    columns[slot][i] = values[slot];
+                }
+            } else {
+                for (int slot = 0; slot < symbols.size(); slot++) {
+                    columns[slot][i] = example.getValue(symbols.getNames().get(slot));
+                }
+            }
+            outputs[i] = example.getOutput();
+        }
+    }
+
+    public SymbolTable getSymbolTable() {
+        return symbols;
+    }
+
+    public List<Example> getExamples() {
+        return examples;
+    }
+
+    public int size() {
+        return outputs.length;
+    }
+
+    /**
+     * @param slot the slot of a variable
+     * @return the values of the variable in every example, which must not be modified
+     */
+    public int[] getColumn(int slot) {
+        return columns[slot];
+    }
+
+    /**
+     * @return the expected output of every example, which must not be modified
+     */
+    public int[] getOutputs() {
+        return outputs;
+    }
+}
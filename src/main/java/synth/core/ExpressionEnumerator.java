@@ -2,15 +2,38 @@ package synth.core;
 
 import java.util.Collections;
 import java.util.LinkedList;
+import java.util.Queue;
 
 import synth.cfg.CFG;
 import synth.cfg.NonTerminal;
 
 public class ExpressionEnumerator extends Enumerator {
 
+    /**
+     * Enumerate all expressions in breadth-first order
+     *
+     * @param cfg the context-free grammar
+     */
     public ExpressionEnumerator(CFG cfg) {
-        super(cfg, new LinkedList<>() {{
-            add(new ASTNode(new NonTerminal("E"), Collections.emptyList()));
-        }});
+        this(cfg, new LinkedList<>(), null, new SearchMetrics(), SymmetryBreaking.ALL);
+    }
+
+    /**
+     * @param cfg              the context-free grammar
+     * @param workList         an empty work list, e.g. a priority work list to enumerate cheaper nodes first
+     * @param interpreter      the batch interpreter over the inputs of the examples to skip the expressions
+     *                         whose output vector was already enumerated, or null to enumerate all of them
+     * @param metrics          the counters updated by the enumeration, e.g. those of the synthesizer
+     * @param symmetryBreaking the symmetry-breaking rules applied when expanding nodes
+     */
+    public ExpressionEnumerator(CFG cfg, Queue<ASTNode> workList, BatchInterpreter interpreter, SearchMetrics metrics,
+                                SymmetryBreaking symmetryBreaking) {
+        super(cfg, workList, interpreter, metrics, symmetryBreaking);
+        workList.add(NodeFactory.create(new NonTerminal("E"), Collections.emptyList()));
+    }
+
+    @Override
+    protected Signature signature(ASTNode node, BatchInterpreter interpreter) {
+        return new Signature(interpreter.evalExpr(node));
     }
 }
@@ -0,0 +1,167 @@
+package synth.core;
+
+import synth.cfg.NonTerminal;
+import synth.cfg.Opcode;
+import synth.cfg.Symbol;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Index of forbidden patterns learned from UNSAT cores.
+ * A pattern is a tree anchored at the root of a program, whose wildcards match any subtree,
+ * such that no program matching the pattern can satisfy the examples.
+ * Patterns are stored in a trie over their symbols in pre-order, so a node is matched against all the patterns
+ * sharing a prefix at once. Patterns are added under a lock, while nodes are matched without locking.
+ */
+public class ForbiddenPatternIndex {
+    /**
+     * the symbol of a wildcard in a pattern
+     */
+    public static final NonTerminal WILDCARD = new NonTerminal("_");
+
+    /**
+     * Default maximum number of patterns
+     */
+    private static final int DEFAULT_CAPACITY = 4096;
+
+    private final TrieNode root = new TrieNode();
+    private final int capacity;
+    private volatile int size = 0;
+
+    public ForbiddenPatternIndex() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param capacity the maximum number of patterns, further patterns are dropped
+     */
+    public ForbiddenPatternIndex(int capacity) {
+        this.capacity = capacity;
+    }
+
+    public static ASTNode wildcard() {
+        return NodeFactory.create(WILDCARD, Collections.emptyList());
+    }
+
+    /**
+     * Add a pattern learned from the node
+     *
+     * @param pattern the pattern
+     * @param node    the node the pattern was learned from
+     * @return true if the pattern was added, false if it does not match more programs than the node itself
+     */
+    public synchronized boolean add(ASTNode pattern, ASTNode node) {
+        if (size >= capacity || countFixed(pattern) >= countFixed(node)) {
+            return false;
+        }
+        List<Symbol> symbols = new ArrayList<>();
+        preOrder(pattern, symbols);
+        TrieNode trieNode = root;
+        for (Symbol symbol : symbols) {
+            trieNode = trieNode.getOrCreateChild(symbol);
+        }
+        if (trieNode.terminal) {
+            return false;
+        }
+        // Published last, so a concurrent reader never stops at a pattern whose path is incomplete
+        trieNode.terminal = true;
+        size++;
+        return true;
+    }
+
+    /**
+     * Check if the node matches a forbidden pattern
+     *
+     * @param node the AST node
+     * @return true if the node matches a forbidden pattern, false otherwise
+     */
+    public boolean matches(ASTNode node) {
+        if (size == 0) {
+            return false;
+        }
+        List<ASTNode> pending = new ArrayList<>();
+        pending.add(node);
+        return matches(root, pending);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Match the subtrees still to visit in pre-order, the next one being last, against the patterns below a trie node
+     */
+    private static boolean matches(TrieNode trieNode, List<ASTNode> pending) {
+        if (trieNode.terminal) {
+            return true;
+        }
+        if (pending.isEmpty()) {
+            return false;
+        }
+        ASTNode node = pending.remove(pending.size() - 1);
+        boolean matched = false;
+        TrieNode wildcardChild = trieNode.wildcardChild;
+        if (wildcardChild != null) {
+            matched = matches(wildcardChild, pending);
+        }
+        TrieNode child = matched ? null : trieNode.children.get(node.getSymbol());
+        if (child != null) {
+            int length = pending.size();
+            List<ASTNode> children = node.getChildren();
+            for (int i = children.size() - 1; i >= 0; i--) {
+                pending.add(children.get(i));
+            }
+            matched = matches(child, pending);
+            pending.subList(length, pending.size()).clear();
+        }
+        pending.add(node);
+        return matched;
+    }
+
+    private static void preOrder(ASTNode node, List<Symbol> symbols) {
+        symbols.add(node.getSymbol());
+        for (ASTNode child : node.getChildren()) {
+            preOrder(child, symbols);
+        }
+    }
+
+    /**
+     * Count the nodes that are neither holes nor wildcards
+     */
+    private static int countFixed(ASTNode node) {
+        int count = node.getSymbol().getOpcode() == Opcode.HOLE ? 0 : 1;
+        for (ASTNode child : node.getChildren()) {
+            count += countFixed(child);
+        }
+        return count;
+    }
+
+    /**
+     * A node of the trie, whose path from the root spells a prefix of patterns in pre-order
+     */
+    private static class TrieNode {
+        private final Map<Symbol, TrieNode> children = new ConcurrentHashMap<>();
+        private volatile TrieNode wildcardChild;
+        /**
+         * whether the path from the root spells a whole pattern
+         */
+        private volatile boolean terminal;
+
+        /**
+         * Must be called while holding the lock of the index
+         */
+        TrieNode getOrCreateChild(Symbol symbol) {
+            if (symbol == WILDCARD) {
+                if (wildcardChild == null) {
+                    wildcardChild = new TrieNode();
+                }
+                return wildcardChild;
+            }
+            return children.computeIfAbsent(symbol, key -> new TrieNode());
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package synth.core;
+
+import synth.cfg.Terminal;
+
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Unifier that takes the first expression whose satisfied examples are exactly those of a predicate,
+ * and recursively unifies the examples left for the else branch
+ */
+public class GreedyUnifier implements Unifier {
+
+    @Override
+    public ASTNode unify(CoverageIndex exprIndex, CoverageIndex predIndex, BitSet examples) {
+        // Iterate over all expressions and unify them with predicates if possible
+        for (Map.Entry<ASTNode, BitSet> expEntry : exprIndex.entries()) {
+            ASTNode expr = expEntry.getKey();
+            BitSet satisfiedExamples = expEntry.getValue();
+
+            // Skip the expression if it cannot satisfy any example
+            if (!satisfiedExamples.intersects(examples)) {
+                continue;
+            }
+
+            BitSet unsatisfiedExamples = (BitSet) examples.clone();
+            unsatisfiedExamples.andNot(satisfiedExamples);
+            // Return the expression if it satisfies all examples as no predicate is needed
+            if (unsatisfiedExamples.isEmpty()) {
+                return expr;
+            }
+
+            // Otherwise, check if the expression can be unified with the predicate satisfying the same examples
+            ASTNode pred = predIndex.getNode(satisfiedExamples);
+            if (pred != null) {
+                ASTNode child = unify(exprIndex, predIndex, unsatisfiedExamples);
+                if (child != null) {
+                    return NodeFactory.create(new Terminal("Ite"), List.of(pred, expr, child));
+                }
+            }
+        }
+
+        return null;
+    }
+}
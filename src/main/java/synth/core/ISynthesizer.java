@@ -6,6 +6,37 @@ import java.util.List;
 
 public interface ISynthesizer {
 
-    public Program synthesize(CFG cfg, List<Example> examples);
+    /**
+     * Synthesize a program without a budget, stopping only once the thread is interrupted
+     */
+    public default Program synthesize(CFG cfg, List<Example> examples) {
+        return synthesize(cfg, examples, SearchBudget.unlimited());
+    }
+
+    /**
+     * Synthesize a program within a budget
+     *
+     * @param cfg      the context-free grammar
+     * @param examples a list of examples
+     * @param budget   the budget polled by the search
+     * @return the program or null to indicate synthesis failure
+     * @throws BudgetExceededException if the search exceeded its budget or has been interrupted
+     */
+    public Program synthesize(CFG cfg, List<Example> examples, SearchBudget budget);
+
+    /**
+     * Stop the running searches of this synthesizer from another thread, which then throw a BudgetExceededException
+     * with the INTERRUPTED reason. Interrupting the thread of a search is enough for the searches in Java,
+     * but not for those blocked in native code such as a Z3 check, which override this method.
+     */
+    public default void cancel() {
+    }
+
+    /**
+     * @return the counters of the searches of this synthesizer
+     */
+    public default SearchMetrics getMetrics() {
+        return new SearchMetrics();
+    }
 
 }
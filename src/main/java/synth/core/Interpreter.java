@@ -1,5 +1,8 @@
 package synth.core;
 
+import synth.cfg.Opcode;
+import synth.cfg.Terminal;
+
 import java.util.Map;
 
 public class Interpreter {
@@ -17,29 +20,48 @@ public class Interpreter {
     }
 
     /**
-     * mapping from all variable names to their values
+     * A static method to evaluate a program on the input of an example.
+     *
+     * @param program the program to be evaluated
+     * @param example the example
+     * @return the value of the program expression
      */
-    private final Map<String, Integer> environment;
+    public static int evaluate(Program program, Example example) {
+        Interpreter interpreter = new Interpreter(example);
+        return interpreter.evalExpr(program.getRoot());
+    }
+
+    /**
+     * mapping from all variable names to their slots
+     */
+    private final SymbolTable symbols;
+    /**
+     * the values of all variables, indexed by slot
+     */
+    private final int[] values;
 
     public Interpreter(Map<String, Integer> environment) {
-        this.environment = environment;
+        Example example = new Example(environment, 0);
+        this.symbols = example.getSymbolTable();
+        this.values = example.getValues();
+    }
+
+    public Interpreter(Example example) {
+        this.symbols = example.getSymbolTable();
+        this.values = example.getValues();
     }
 
     public int evalExpr(ASTNode expr) {
-        switch (expr.getSymbol().getName()) {
-            case "Ite":
+        switch (expr.getSymbol().getOpcode()) {
+            case Opcode.ITE:
                 return evalIte(expr);
-            case "Add":
+            case Opcode.ADD:
                 return evalAdd(expr);
-            case "Multiply":
+            case Opcode.MULTIPLY:
                 return evalMultiply(expr);
-            case "x":
-            case "y":
-            case "z":
+            case Opcode.VAR:
                 return evalVar(expr);
-            case "1":
-            case "2":
-            case "3":
+            case Opcode.CONST:
                 return evalConst(expr);
             default:
                 throw new RuntimeException("Cannot evaluate expression " + expr);
@@ -47,16 +69,16 @@ public class Interpreter {
     }
 
     public boolean evalPred(ASTNode pred) {
-        switch (pred.getSymbol().getName()) {
-            case "Lt":
+        switch (pred.getSymbol().getOpcode()) {
+            case Opcode.LT:
                 return evalLt(pred);
-            case "Eq":
+            case Opcode.EQ:
                 return evalEq(pred);
-            case "And":
+            case Opcode.AND:
                 return evalAnd(pred);
-            case "Or":
+            case Opcode.OR:
                 return evalOr(pred);
-            case "Not":
+            case Opcode.NOT:
                 return evalNot(pred);
             default:
                 throw new RuntimeException("Cannot evaluate predicate " + pred);
@@ -80,11 +102,15 @@ public class Interpreter {
     }
 
     public int evalVar(ASTNode v) {
-        return environment.get(v.getSymbol().getName());
+        int slot = symbols.getSlot((Terminal) v.getSymbol());
+        if (slot < 0) {
+            throw new RuntimeException("Unknown variable " + v);
+        }
+        return values[slot];
     }
 
     public int evalConst(ASTNode c) {
-        return Integer.parseInt(c.getSymbol().getName());
+        return ((Terminal) c.getSymbol()).getValue();
     }
 
     public boolean evalLt(ASTNode lt) {
@@ -0,0 +1,97 @@
+package synth.core;
+
+import synth.cfg.CFG;
+
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.logging.Logger;
+
+import static synth.core.Utils.expand;
+import static synth.core.Utils.isValid;
+
+public class IterativeDeepeningSynthesizer implements ISynthesizer {
+    private static final Logger LOGGER = Logger.getLogger(IterativeDeepeningSynthesizer.class.getName());
+
+    private final SymmetryBreaking symmetryBreaking;
+    private final SearchMetrics metrics = new SearchMetrics();
+
+    public IterativeDeepeningSynthesizer() {
+        this(SymmetryBreaking.ALL);
+    }
+
+    /**
+     * @param symmetryBreaking the symmetry-breaking rules applied when expanding nodes
+     */
+    public IterativeDeepeningSynthesizer(SymmetryBreaking symmetryBreaking) {
+        this.symmetryBreaking = symmetryBreaking;
+    }
+
+    @Override
+    public SearchMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Synthesize a program f(x, y, z) based on a context-free grammar and examples
+     * by a depth-first search bounded by program size, where the bound is increased by one after each iteration.
+     * Only the current path and its siblings are kept in memory, so memory stays flat regardless of the bound.
+     * Each iteration only validates programs of exactly the bounded size, as smaller ones were validated before,
+     * so the first program found is a smallest one.
+     *
+     * @param cfg      the context-free grammar
+     * @param examples a list of examples
+     * @param budget   the budget polled by the search
+     * @return the program or null to indicate synthesis failure
+     */
+    @Override
+    public Program synthesize(CFG cfg, List<Example> examples, SearchBudget budget) {
+        ExampleSet exampleSet = ExampleSet.of(examples);
+        BatchInterpreter interpreter = new BatchInterpreter(exampleSet);
+        int[] outputs = exampleSet.getOutputs();
+        ASTNode start = NodeFactory.create(cfg.getStartSymbol(), Collections.emptyList());
+
+        // The bound grows up to the maximum size of the budget
+        for (int bound = 1; budget.allowsSize(bound); bound++) {
+            LOGGER.fine("Searching programs of size " + bound);
+            Deque<ASTNode> stack = new ArrayDeque<>();
+            stack.push(start);
+            boolean pruned = false;
+
+            while (!stack.isEmpty()) {
+                budget.check();
+                ASTNode node = stack.pop();
+                metrics.incrementNodesExplored();
+
+                // Each hole is completed by at least one node, so the size is a lower bound of any completion
+                if (node.size() > bound) {
+                    pruned = true;
+                } else if (node.isComplete()) {
+                    if (node.size() == bound) {
+                        metrics.incrementProgramsEvaluated();
+                        metrics.incrementInterpreterCalls();
+                        if (isValid(new Program(node), interpreter, outputs)) {
+                            return new Program(node);
+                        }
+                    }
+                } else {
+                    // Push in reverse order so that nodes are visited in the same order as they are expanded
+                    List<ASTNode> expandedNodes = expand(node, cfg, symmetryBreaking);
+                    for (int i = expandedNodes.size() - 1; i >= 0; i--) {
+                        stack.push(expandedNodes.get(i));
+                    }
+                    metrics.incrementNodesExpanded();
+                    metrics.updateWorkListPeak(stack.size());
+                }
+            }
+
+            // The whole search space fits in the bound, so no larger program exists
+            if (!pruned) {
+                return null;
+            }
+        }
+        budget.checkExhausted();
+        return null;
+    }
+}
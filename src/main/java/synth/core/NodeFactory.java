@@ -0,0 +1,64 @@
+package synth.core;
+
+import synth.cfg.Symbol;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * A hash-consing factory for AST nodes.
+ * Structurally equal complete subtrees and leaves are interned to a single instance, so identical subtrees
+ * are shared across all partial programs in a work list. Interned nodes are only weakly referenced and are
+ * released once no program uses them anymore. The interned nodes are split into stripes by hash code,
+ * each with its own lock, so that the threads of the parallel synthesizers rarely wait for each other.
+ */
+public class NodeFactory {
+    /**
+     * Number of stripes, a power of two
+     */
+    private static final int STRIPES = 64;
+    private static final List<Map<ASTNode, WeakReference<ASTNode>>> NODES = new ArrayList<>(STRIPES);
+
+    static {
+        for (int i = 0; i < STRIPES; i++) {
+            NODES.add(new WeakHashMap<>());
+        }
+    }
+
+    /**
+     * Create a node with the given symbol and children, which is interned if it is complete or a leaf
+     *
+     * @param symbol   the symbol of the node
+     * @param children the children of the node, which should be created by this factory as well
+     * @return the node
+     */
+    public static ASTNode create(Symbol symbol, List<ASTNode> children) {
+        ASTNode node = new ASTNode(symbol, children);
+        // Partial programs are mostly unique in a work list, so only complete subtrees are interned
+        return node.isComplete() || children.isEmpty() ? intern(node) : node;
+    }
+
+    /**
+     * Get the interned node structurally equal to the given node
+     *
+     * @param node the node
+     * @return the interned node
+     */
+    public static ASTNode intern(ASTNode node) {
+        // Spread the high bits of the hash code, as the hash codes of small trees differ mostly in their low bits
+        int hash = node.hashCode();
+        Map<ASTNode, WeakReference<ASTNode>> stripe = NODES.get((hash ^ (hash >>> 16)) & (STRIPES - 1));
+        synchronized (stripe) {
+            WeakReference<ASTNode> ref = stripe.get(node);
+            ASTNode interned = ref != null ? ref.get() : null;
+            if (interned == null) {
+                stripe.put(node, new WeakReference<>(node));
+                interned = node;
+            }
+            return interned;
+        }
+    }
+}
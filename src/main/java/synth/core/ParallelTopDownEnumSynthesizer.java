@@ -0,0 +1,206 @@
+package synth.core;
+
+import synth.cfg.CFG;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+
+import static synth.core.Utils.expand;
+import static synth.core.Utils.isValid;
+
+public class ParallelTopDownEnumSynthesizer implements ISynthesizer {
+    private static final Logger LOGGER = Logger.getLogger(ParallelTopDownEnumSynthesizer.class.getName());
+
+    /**
+     * Minimum number of nodes processed by a single task
+     */
+    private static final int MIN_CHUNK_SIZE = 64;
+    /**
+     * Number of tasks per worker thread, so that idle workers can steal from busy ones
+     */
+    private static final int CHUNKS_PER_THREAD = 8;
+
+    private final int parallelism;
+    private final SymmetryBreaking symmetryBreaking;
+    private final SearchMetrics metrics = new SearchMetrics();
+
+    public ParallelTopDownEnumSynthesizer() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    public ParallelTopDownEnumSynthesizer(int parallelism) {
+        this(parallelism, SymmetryBreaking.ALL);
+    }
+
+    /**
+     * @param parallelism      the number of worker threads
+     * @param symmetryBreaking the symmetry-breaking rules applied when expanding nodes
+     */
+    public ParallelTopDownEnumSynthesizer(int parallelism, SymmetryBreaking symmetryBreaking) {
+        this.parallelism = parallelism;
+        this.symmetryBreaking = symmetryBreaking;
+    }
+
+    @Override
+    public SearchMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Synthesize a program f(x, y, z) based on a context-free grammar and examples
+     * by a breadth-first search whose levels are processed in parallel on a work-stealing pool.
+     * A level holds all nodes derived by the same number of expansions, in the same order as the work list
+     * of the sequential search, so the smallest valid index of the first level with a valid program is
+     * the program the sequential search returns.
+     *
+     * @param cfg      the context-free grammar
+     * @param examples a list of examples
+     * @param budget   the budget polled by the search
+     * @return the program or null to indicate synthesis failure
+     */
+    @Override
+    public Program synthesize(CFG cfg, List<Example> examples, SearchBudget budget) {
+        ExampleSet exampleSet = ExampleSet.of(examples);
+        BatchInterpreter interpreter = new BatchInterpreter(exampleSet);
+        int[] outputs = exampleSet.getOutputs();
+
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            List<ASTNode> level = List.of(NodeFactory.create(cfg.getStartSymbol(), Collections.emptyList()));
+            for (int depth = 0; !level.isEmpty(); depth++) {
+                // Index of the first valid program in the current level
+                AtomicInteger found = new AtomicInteger(Integer.MAX_VALUE);
+                List<ASTNode> nextLevel = processLevel(pool, level, found, cfg, interpreter, outputs, budget);
+                // The level is incomplete if the search has been interrupted
+                budget.poll();
+                if (found.get() != Integer.MAX_VALUE) {
+                    return new Program(level.get(found.get()));
+                }
+                LOGGER.fine("Expanded level " + depth + " into " + nextLevel.size() + " nodes");
+                // The next level plays the role of the work list of the sequential search
+                metrics.updateWorkListPeak(nextLevel.size());
+                level = nextLevel;
+            }
+            budget.checkExhausted();
+            return null;
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * Validate and expand all nodes of a level in parallel
+     *
+     * @param pool        the work-stealing pool
+     * @param level       the nodes of the level in work list order
+     * @param found       the index of the first valid program in the level
+     * @param cfg         the context-free grammar
+     * @param interpreter the batch interpreter over the inputs of the examples
+     * @param outputs     the expected output of each example
+     * @param budget      the budget polled by the tasks
+     * @return the nodes of the next level in work list order
+     */
+    private List<ASTNode> processLevel(ForkJoinPool pool, List<ASTNode> level, AtomicInteger found, CFG cfg,
+                                       BatchInterpreter interpreter, int[] outputs, SearchBudget budget) {
+        int chunkSize = Math.max(MIN_CHUNK_SIZE, level.size() / (parallelism * CHUNKS_PER_THREAD) + 1);
+        List<LevelTask> tasks = new ArrayList<>();
+        Thread caller = Thread.currentThread();
+        for (int from = 0; from < level.size(); from += chunkSize) {
+            tasks.add(new LevelTask(level, from, Math.min(from + chunkSize, level.size()), found, cfg,
+                    symmetryBreaking, interpreter, outputs, metrics, budget, caller));
+        }
+        pool.invoke(new RecursiveAction() {
+            @Override
+            protected void compute() {
+                invokeAll(tasks);
+            }
+        });
+
+        // Concatenate the expanded nodes of each chunk in order
+        int size = 0;
+        for (LevelTask task : tasks) {
+            size += task.getRawResult().size();
+        }
+        List<ASTNode> nextLevel = new ArrayList<>(size);
+        for (LevelTask task : tasks) {
+            nextLevel.addAll(task.getRawResult());
+        }
+        return nextLevel;
+    }
+
+    /**
+     * A task that validates the complete nodes and expands the incomplete nodes of a range of a level.
+     * It returns the expanded nodes in order, so that the next level keeps the order of the sequential search.
+     */
+    private static class LevelTask extends RecursiveTask<List<ASTNode>> {
+        private static final long serialVersionUID = 1L;
+
+        private final List<ASTNode> level;
+        private final int from;
+        private final int to;
+        private final AtomicInteger found;
+        private final CFG cfg;
+        private final SymmetryBreaking symmetryBreaking;
+        private final BatchInterpreter interpreter;
+        private final int[] outputs;
+        private final SearchMetrics metrics;
+        private final SearchBudget budget;
+        /**
+         * the thread waiting for the level, whose interruption stops the task
+         */
+        private final Thread caller;
+
+        LevelTask(List<ASTNode> level, int from, int to, AtomicInteger found, CFG cfg, SymmetryBreaking symmetryBreaking,
+                  BatchInterpreter interpreter, int[] outputs, SearchMetrics metrics, SearchBudget budget, Thread caller) {
+            this.level = level;
+            this.from = from;
+            this.to = to;
+            this.found = found;
+            this.cfg = cfg;
+            this.symmetryBreaking = symmetryBreaking;
+            this.interpreter = interpreter;
+            this.outputs = outputs;
+            this.metrics = metrics;
+            this.budget = budget;
+            this.caller = caller;
+        }
+
+        @Override
+        protected List<ASTNode> compute() {
+            List<ASTNode> expandedNodes = new ArrayList<>();
+            for (int i = from; i < to; i++) {
+                // Stop as soon as a valid program that precedes this node has been found, or the search is interrupted
+                if (i > found.get() || caller.isInterrupted()) {
+                    break;
+                }
+                budget.check();
+                ASTNode node = level.get(i);
+                metrics.incrementNodesExplored();
+                // Skip the node if its programs exceed the maximum size
+                if (!budget.allows(node)) {
+                    continue;
+                }
+                if (node.isComplete()) {
+                    metrics.incrementProgramsEvaluated();
+                    metrics.incrementInterpreterCalls();
+                    if (isValid(new Program(node), interpreter, outputs)) {
+                        found.accumulateAndGet(i, Math::min);
+                        break;
+                    }
+                }
+                // The next level is not needed anymore once a valid program has been found
+                else if (found.get() == Integer.MAX_VALUE) {
+                    expandedNodes.addAll(expand(node, cfg, symmetryBreaking));
+                    metrics.incrementNodesExpanded();
+                }
+            }
+            return expandedNodes;
+        }
+    }
+}
@@ -0,0 +1,260 @@
+package synth.core;
+
+import synth.cfg.CFG;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+import static synth.core.Utils.isValid;
+
+public class PipelinedDivideAndConquerSynthesizer implements ISynthesizer {
+    private static final Logger LOGGER = Logger.getLogger(PipelinedDivideAndConquerSynthesizer.class.getName());
+
+    /**
+     * Default capacity of the queue between an enumerator and the unifier
+     */
+    private static final int DEFAULT_QUEUE_CAPACITY = 1024;
+
+    /**
+     * Marker of the end of an enumeration
+     */
+    private static final Item END = new Item(null, null);
+
+    private final WorkListFactory workListFactory;
+    private final Unifier unifier;
+    private final int queueCapacity;
+    private final SymmetryBreaking symmetryBreaking;
+    private final SearchMetrics metrics = new SearchMetrics();
+
+    public PipelinedDivideAndConquerSynthesizer() {
+        this((cfg, examples) -> new LinkedList<>(), new GreedyUnifier(), DEFAULT_QUEUE_CAPACITY);
+    }
+
+    /**
+     * @param workListFactory the factory of the work lists of the expression and predicate enumerators
+     * @param unifier         the strategy to unify the expressions and predicates
+     * @param queueCapacity   the capacity of the queue between an enumerator and the unifier
+     */
+    public PipelinedDivideAndConquerSynthesizer(WorkListFactory workListFactory, Unifier unifier, int queueCapacity) {
+        this(workListFactory, unifier, queueCapacity, SymmetryBreaking.ALL);
+    }
+
+    /**
+     * @param workListFactory  the factory of the work lists of the expression and predicate enumerators
+     * @param unifier          the strategy to unify the expressions and predicates
+     * @param queueCapacity    the capacity of the queue between an enumerator and the unifier
+     * @param symmetryBreaking the symmetry-breaking rules applied when expanding nodes
+     */
+    public PipelinedDivideAndConquerSynthesizer(WorkListFactory workListFactory, Unifier unifier, int queueCapacity,
+                                                SymmetryBreaking symmetryBreaking) {
+        this.workListFactory = workListFactory;
+        this.unifier = unifier;
+        this.queueCapacity = queueCapacity;
+        this.symmetryBreaking = symmetryBreaking;
+    }
+
+    /**
+     * A distinct node with the examples it satisfies
+     */
+    private static class Item {
+        private final ASTNode node;
+        private final BitSet mask;
+
+        Item(ASTNode node, BitSet mask) {
+            this.node = node;
+            this.mask = mask;
+        }
+    }
+
+    @Override
+    public SearchMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Synthesize a program f(x, y, z) based on a context-free grammar and examples
+     * by divide-and-conquer, where the expression and predicate enumerators run as producer threads
+     * feeding bounded queues with distinct nodes, and the calling thread unifies them.
+     * Unification is attempted again whenever new nodes have arrived, while the enumerators keep producing.
+     *
+     * @param cfg      the context-free grammar
+     * @param examples a list of examples
+     * @param budget   the budget polled by the producers and the unifier
+     * @return the program or null to indicate synthesis failure
+     */
+    @Override
+    public Program synthesize(CFG cfg, List<Example> examples, SearchBudget budget) {
+        ExampleSet exampleSet = ExampleSet.of(examples);
+        int[] outputs = exampleSet.getOutputs();
+        BlockingQueue<Item> exprQueue = new ArrayBlockingQueue<>(queueCapacity);
+        BlockingQueue<Item> predQueue = new ArrayBlockingQueue<>(queueCapacity);
+
+        // Each producer owns its interpreter, and its enumerator skips the nodes with an already seen signature
+        BatchInterpreter exprInterpreter = new BatchInterpreter(exampleSet);
+        BatchInterpreter predInterpreter = new BatchInterpreter(exampleSet);
+        Enumerator exprEnumerator = new ExpressionEnumerator(cfg, workListFactory.create(cfg, exampleSet), exprInterpreter, metrics,
+                symmetryBreaking);
+        Enumerator predEnumerator = new PredicateEnumerator(cfg, workListFactory.create(cfg, exampleSet), predInterpreter, metrics,
+                symmetryBreaking);
+
+        // The producers are daemon threads, so that a producer busy expanding nodes does not keep the JVM alive
+        ExecutorService producers = Executors.newFixedThreadPool(2, runnable -> {
+            Thread thread = new Thread(runnable, "synth-producer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            futures.add(producers.submit(new Producer(exprEnumerator, exprInterpreter, outputs, exprQueue, budget)));
+            futures.add(producers.submit(new Producer(predEnumerator, predInterpreter, outputs, predQueue, budget)));
+
+            Program program = unify(exprQueue, predQueue, outputs.length, futures, budget);
+            assert isValid(program, examples) : "Unexpected validation failure for the synthesized program: " + program;
+            return program;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new BudgetExceededException(BudgetExceededException.Reason.INTERRUPTED, "The synthesis has been interrupted");
+        } finally {
+            producers.shutdownNow();
+        }
+    }
+
+    /**
+     * Consume the distinct nodes of both enumerators and unify them once every example is covered
+     *
+     * @param exprQueue the queue of distinct expressions
+     * @param predQueue the queue of distinct predicates
+     * @param size      the number of examples
+     * @param futures   the futures of the producers
+     * @param budget    the budget polled by the unifier
+     * @return the unified program
+     */
+    private Program unify(BlockingQueue<Item> exprQueue, BlockingQueue<Item> predQueue, int size,
+                          List<Future<?>> futures, SearchBudget budget) throws InterruptedException {
+        CoverageIndex exprIndex = new CoverageIndex();
+        CoverageIndex predIndex = new CoverageIndex();
+        BitSet all = new BitSet(size);
+        all.set(0, size);
+        boolean exprDone = false;
+        boolean predDone = false;
+        boolean changed = false;
+
+        while (true) {
+            budget.poll();
+            // Take the nodes that have arrived, or wait briefly for more
+            List<Item> exprItems = new ArrayList<>();
+            List<Item> predItems = new ArrayList<>();
+            exprQueue.drainTo(exprItems);
+            predQueue.drainTo(predItems);
+            if (exprItems.isEmpty() && predItems.isEmpty()) {
+                if (exprDone && predDone) {
+                    checkProducers(futures);
+                    throw new RuntimeException("Cannot enumerate any node");
+                }
+                Item item = (exprDone ? predQueue : exprQueue).poll(1, TimeUnit.MILLISECONDS);
+                if (item != null) {
+                    (exprDone ? predItems : exprItems).add(item);
+                }
+                checkProducers(futures);
+            }
+
+            for (Item item : exprItems) {
+                if (item == END) {
+                    exprDone = true;
+                } else if (exprIndex.add(item.node, item.mask)) {
+                    metrics.incrementDistinctExpressions();
+                    changed = true;
+                }
+            }
+            for (Item item : predItems) {
+                if (item == END) {
+                    predDone = true;
+                } else if (predIndex.add(item.node, item.mask)) {
+                    metrics.incrementDistinctPredicates();
+                    changed = true;
+                }
+            }
+
+            // Unify as soon as every example is covered by at least one expression and one predicate
+            if (changed && exprIndex.covers(size) && predIndex.covers(size)) {
+                changed = false;
+                LOGGER.fine("Unifying " + exprIndex.size() + " expressions and " + predIndex.size() + " predicates");
+                ASTNode node = DivideAndConquerSynthesizer.unify(unifier, exprIndex, predIndex, all);
+                if (node != null) {
+                    return new Program(node);
+                }
+            }
+        }
+    }
+
+    /**
+     * Rethrow the failure of a producer
+     */
+    private void checkProducers(List<Future<?>> futures) throws InterruptedException {
+        for (Future<?> future : futures) {
+            if (future.isDone()) {
+                try {
+                    future.get();
+                } catch (ExecutionException e) {
+                    // Report the budget exceeded by a producer as the budget of the synthesis
+                    if (e.getCause() instanceof BudgetExceededException) {
+                        throw (BudgetExceededException) e.getCause();
+                    }
+                    throw new RuntimeException("Enumeration failed", e.getCause());
+                }
+            }
+        }
+    }
+
+    /**
+     * A producer enumerating the nodes that satisfy distinct non-empty sets of examples
+     */
+    private static class Producer implements Runnable {
+        private final Enumerator enumerator;
+        private final BatchInterpreter interpreter;
+        private final int[] outputs;
+        private final BlockingQueue<Item> queue;
+        private final SearchBudget budget;
+
+        Producer(Enumerator enumerator, BatchInterpreter interpreter, int[] outputs, BlockingQueue<Item> queue,
+                 SearchBudget budget) {
+            this.enumerator = enumerator;
+            this.interpreter = interpreter;
+            this.outputs = outputs;
+            this.queue = queue;
+            this.budget = budget;
+        }
+
+        @Override
+        public void run() {
+            Set<BitSet> seen = new HashSet<>();
+            try {
+                while (!Thread.currentThread().isInterrupted()) {
+                    ASTNode node = enumerator.enumerate(budget);
+                    if (node == null) {
+                        break;
+                    }
+                    BitSet mask = DivideAndConquerSynthesizer.satisfiedExamples(node, enumerator, interpreter, outputs);
+                    if (!mask.isEmpty() && seen.add(mask)) {
+                        queue.put(new Item(node, mask));
+                    }
+                }
+                queue.put(END);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
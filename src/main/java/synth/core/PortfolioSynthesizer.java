@@ -0,0 +1,129 @@
+package synth.core;
+
+import synth.cfg.CFG;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+import static synth.core.Utils.isValid;
+
+public class PortfolioSynthesizer implements ISynthesizer {
+    private static final Logger LOGGER = Logger.getLogger(PortfolioSynthesizer.class.getName());
+    /**
+     * Maximum time in milliseconds to wait for the cancelled strategies to stop
+     */
+    private static final long STOP_TIMEOUT = 1000;
+
+    private final List<ISynthesizer> strategies;
+    private final SearchMetrics metrics = new SearchMetrics();
+
+    /**
+     * @param strategies the synthesizers raced against each other, each on its own thread
+     */
+    public PortfolioSynthesizer(List<ISynthesizer> strategies) {
+        if (strategies.isEmpty()) {
+            throw new RuntimeException("A portfolio needs at least one synthesizer");
+        }
+        this.strategies = List.copyOf(strategies);
+    }
+
+    /**
+     * Cancel the strategies, e.g. when this portfolio is itself a strategy of another portfolio
+     */
+    @Override
+    public void cancel() {
+        for (ISynthesizer strategy : strategies) {
+            strategy.cancel();
+        }
+    }
+
+    @Override
+    public SearchMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Synthesize a program f(x, y, z) based on a context-free grammar and examples
+     * by running all strategies concurrently. The first valid program wins, and the other strategies
+     * are interrupted and cancelled, which makes them stop their search and release their resources, e.g. their
+     * Z3 contexts. Cancelling a strategy interrupts its native Z3 checks, which do not see the interruption
+     * of their threads, and the portfolio waits at most STOP_TIMEOUT for the strategies to stop.
+     * A strategy that fails or returns no valid program leaves the race to the others.
+     * Each strategy has its own copy of the budget, so the limits bound each of them as if it ran alone.
+     *
+     * @param cfg      the context-free grammar
+     * @param examples a list of examples
+     * @param budget   the budget copied for each strategy
+     * @return the program or null to indicate synthesis failure
+     */
+    @Override
+    public Program synthesize(CFG cfg, List<Example> examples, SearchBudget budget) {
+        // The strategies run on daemon threads, so that a strategy slow to stop does not keep the JVM alive
+        ExecutorService pool = Executors.newFixedThreadPool(strategies.size(), runnable -> {
+            Thread thread = new Thread(runnable, "synth-portfolio");
+            thread.setDaemon(true);
+            return thread;
+        });
+        CompletionService<Program> completionService = new ExecutorCompletionService<>(pool);
+        List<Future<Program>> futures = new ArrayList<>();
+        try {
+            for (ISynthesizer strategy : strategies) {
+                SearchBudget strategyBudget = budget.copy();
+                futures.add(completionService.submit(() -> strategy.synthesize(cfg, examples, strategyBudget)));
+            }
+            // The budget exceeded by a strategy, reported if no strategy finds a program
+            BudgetExceededException exceeded = null;
+            for (int i = 0; i < strategies.size(); i++) {
+                Future<Program> future = completionService.take();
+                ISynthesizer strategy = strategies.get(futures.indexOf(future));
+                try {
+                    Program program = future.get();
+                    if (program != null && isValid(program, examples)) {
+                        LOGGER.info("Synthesized by " + strategy.getClass().getSimpleName());
+                        return program;
+                    }
+                } catch (ExecutionException e) {
+                    if (e.getCause() instanceof BudgetExceededException) {
+                        exceeded = (BudgetExceededException) e.getCause();
+                    } else {
+                        // e.g. the Z3 native library cannot be loaded
+                        LOGGER.warning(strategy.getClass().getSimpleName() + " failed: " + e.getCause());
+                    }
+                }
+            }
+            if (exceeded != null) {
+                throw exceeded;
+            }
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new BudgetExceededException(BudgetExceededException.Reason.INTERRUPTED, "The synthesis has been interrupted");
+        } finally {
+            // Cancel the strategies still running, and wait for them so that their counters are final
+            pool.shutdownNow();
+            for (ISynthesizer strategy : strategies) {
+                strategy.cancel();
+            }
+            try {
+                if (!pool.awaitTermination(STOP_TIMEOUT, TimeUnit.MILLISECONDS)) {
+                    LOGGER.warning("Some strategies did not stop within " + STOP_TIMEOUT + " ms, their counters are partial");
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            // Move the counters of the strategies to the portfolio, so that they are not counted again by the next call
+            for (ISynthesizer strategy : strategies) {
+                metrics.add(strategy.getMetrics());
+                strategy.getMetrics().reset();
+            }
+        }
+    }
+}
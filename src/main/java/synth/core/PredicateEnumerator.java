@@ -2,15 +2,43 @@ package synth.core;
 
 import java.util.Collections;
 import java.util.LinkedList;
+import java.util.Queue;
 
 import synth.cfg.CFG;
 import synth.cfg.NonTerminal;
 
 public class PredicateEnumerator extends Enumerator {
 
+    /**
+     * Enumerate all predicates in breadth-first order
+     *
+     * @param cfg the context-free grammar
+     */
     public PredicateEnumerator(CFG cfg) {
-        super(cfg, new LinkedList<>() {{
-            add(new ASTNode(new NonTerminal("B"), Collections.emptyList()));
-        }});
+        this(cfg, new LinkedList<>(), null, new SearchMetrics(), SymmetryBreaking.ALL);
+    }
+
+    /**
+     * @param cfg              the context-free grammar
+     * @param workList         an empty work list, e.g. a priority work list to enumerate cheaper nodes first
+     * @param interpreter      the batch interpreter over the inputs of the examples to skip the predicates
+     *                         whose truth vector was already enumerated, or null to enumerate all of them
+     * @param metrics          the counters updated by the enumeration, e.g. those of the synthesizer
+     * @param symmetryBreaking the symmetry-breaking rules applied when expanding nodes
+     */
+    public PredicateEnumerator(CFG cfg, Queue<ASTNode> workList, BatchInterpreter interpreter, SearchMetrics metrics,
+                               SymmetryBreaking symmetryBreaking) {
+        super(cfg, workList, interpreter, metrics, symmetryBreaking);
+        workList.add(NodeFactory.create(new NonTerminal("B"), Collections.emptyList()));
+    }
+
+    @Override
+    protected Signature signature(ASTNode node, BatchInterpreter interpreter) {
+        boolean[] values = interpreter.evalPred(node);
+        int[] truths = new int[values.length];
+        for (int i = 0; i < values.length; i++) {
+            truths[i] = values[i] ? 1 : 0;
+        }
+        return new Signature(truths);
     }
 }
@@ -0,0 +1,80 @@
+package synth.core;
+
+import java.util.AbstractQueue;
+import java.util.Iterator;
+import java.util.PriorityQueue;
+
+/**
+ * A work list that returns the cheapest program first according to a cost model.
+ * Programs of equal cost are returned in insertion order, so that a constant cost model behaves like a FIFO queue.
+ */
+public class PriorityWorkList extends AbstractQueue<ASTNode> {
+    private final CostModel costModel;
+    private final PriorityQueue<Entry> queue = new PriorityQueue<>();
+    private long sequence = 0;
+
+    public PriorityWorkList(CostModel costModel) {
+        this.costModel = costModel;
+    }
+
+    /**
+     * A program with its cost computed once when added to the work list
+     */
+    private static class Entry implements Comparable<Entry> {
+        private final ASTNode node;
+        private final int cost;
+        private final long sequence;
+
+        Entry(ASTNode node, int cost, long sequence) {
+            this.node = node;
+            this.cost = cost;
+            this.sequence = sequence;
+        }
+
+        @Override
+        public int compareTo(Entry other) {
+            if (cost != other.cost) {
+                return Integer.compare(cost, other.cost);
+            }
+            return Long.compare(sequence, other.sequence);
+        }
+    }
+
+    @Override
+    public boolean offer(ASTNode node) {
+        return queue.offer(new Entry(node, costModel.cost(node), sequence++));
+    }
+
+    @Override
+    public ASTNode poll() {
+        Entry entry = queue.poll();
+        return entry != null ? entry.node : null;
+    }
+
+    @Override
+    public ASTNode peek() {
+        Entry entry = queue.peek();
+        return entry != null ? entry.node : null;
+    }
+
+    @Override
+    public int size() {
+        return queue.size();
+    }
+
+    @Override
+    public Iterator<ASTNode> iterator() {
+        Iterator<Entry> entries = queue.iterator();
+        return new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return entries.hasNext();
+            }
+
+            @Override
+            public ASTNode next() {
+                return entries.next().node;
+            }
+        };
+    }
+}
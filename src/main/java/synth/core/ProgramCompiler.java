@@ -0,0 +1,431 @@
+package synth.core;
+
+import synth.cfg.Opcode;
+import synth.cfg.Terminal;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Compiler from programs to JVM bytecode.
+ * A program over the variables v1, ..., vn is compiled to a class with a single method
+ * public static int f(int v1, ..., int vn), which can be exported and loaded without the interpreter.
+ * The class file uses version 49 (Java 5), which does not require stack map frames.
+ */
+public class ProgramCompiler {
+    private static final int CLASS_FILE_VERSION = 49;
+    /**
+     * Maximum number of int parameters of a method, whose local variable slots fit the one-byte index of iload
+     */
+    private static final int MAX_PARAMETERS = 255;
+    private static final String METHOD_NAME = "f";
+    private static final AtomicInteger CLASS_COUNT = new AtomicInteger();
+
+    // JVM opcodes used by the compiler
+    private static final int ICONST_0 = 0x03;
+    private static final int BIPUSH = 0x10;
+    private static final int SIPUSH = 0x11;
+    private static final int LDC = 0x12;
+    private static final int LDC_W = 0x13;
+    private static final int ILOAD = 0x15;
+    private static final int ILOAD_0 = 0x1a;
+    private static final int IADD = 0x60;
+    private static final int IMUL = 0x68;
+    private static final int IF_ICMPEQ = 0x9f;
+    private static final int IF_ICMPNE = 0xa0;
+    private static final int IF_ICMPLT = 0xa1;
+    private static final int IF_ICMPGE = 0xa2;
+    private static final int GOTO = 0xa7;
+    private static final int IRETURN = 0xac;
+
+    /**
+     * Compile a program and load it as a new class
+     *
+     * @param program   the program to be compiled
+     * @param variables the variable names in the order of the parameters of the compiled method
+     * @return the compiled program
+     */
+    public static CompiledProgram compile(Program program, List<String> variables) {
+        String className = "synth/generated/Program" + CLASS_COUNT.incrementAndGet();
+        byte[] classFile = toClassFile(program, className, variables);
+        try {
+            // Each program is loaded by its own class loader so that it can be unloaded once unused
+            Class<?> cls = new ProgramClassLoader().define(className.replace('/', '.'), classFile);
+            MethodType type = MethodType.methodType(int.class, Collections.nCopies(variables.size(), int.class));
+            MethodHandle handle = MethodHandles.publicLookup().findStatic(cls, METHOD_NAME, type);
+            return new CompiledProgram(program, variables, classFile,
+                    handle.asSpreader(int[].class, variables.size()));
+        } catch (ReflectiveOperationException e) {
+            throw new RuntimeException("Cannot load compiled program " + program, e);
+        }
+    }
+
+    /**
+     * Compile a program to a class file
+     *
+     * @param program   the program to be compiled
+     * @param className the internal name of the class, e.g. pkg/Name
+     * @param variables the variable names in the order of the parameters of the compiled method
+     * @return the content of the class file
+     */
+    public static byte[] toClassFile(Program program, String className, List<String> variables) {
+        ProgramCompiler compiler = new ProgramCompiler(variables);
+        compiler.compileExpr(program.getRoot());
+        compiler.emit(IRETURN, -1);
+        return compiler.toClassFile(className);
+    }
+
+    /**
+     * Export a program as a class file that can be loaded without the interpreter.
+     * The class is in the default package and is named after the file, e.g. Program.class defines Program.
+     *
+     * @param program   the program to be exported
+     * @param variables the variable names in the order of the parameters of the compiled method
+     * @param path      the path of the class file
+     */
+    public static void export(Program program, List<String> variables, Path path) {
+        String fileName = path.getFileName().toString();
+        String className = fileName.endsWith(".class") ? fileName.substring(0, fileName.length() - ".class".length()) : fileName;
+        try {
+            Files.write(path, toClassFile(program, className, variables));
+        } catch (IOException e) {
+            throw new RuntimeException("Cannot write class file " + path, e);
+        }
+    }
+
+    /**
+     * A jump target whose branch offsets are patched once its position is known
+     */
+    private static class Label {
+        private int position = -1;
+        private final List<Integer> branches = new ArrayList<>();
+    }
+
+    /**
+     * A class loader that defines a single class
+     */
+    private static class ProgramClassLoader extends ClassLoader {
+        ProgramClassLoader() {
+            super(ProgramCompiler.class.getClassLoader());
+        }
+
+        Class<?> define(String name, byte[] classFile) {
+            return defineClass(name, classFile, 0, classFile.length);
+        }
+    }
+
+    /**
+     * mapping from variable names to their parameter slots
+     */
+    private final Map<String, Integer> slots = new HashMap<>();
+    private final ByteArrayOutputStream code = new ByteArrayOutputStream();
+    private final ConstantPool pool = new ConstantPool();
+    private final List<Label> labels = new ArrayList<>();
+    private int stack = 0;
+    private int maxStack = 0;
+
+    private ProgramCompiler(List<String> variables) {
+        if (variables.size() > MAX_PARAMETERS) {
+            throw new RuntimeException("Cannot compile a program of more than " + MAX_PARAMETERS + " variables");
+        }
+        for (int i = 0; i < variables.size(); i++) {
+            slots.put(variables.get(i), i);
+        }
+    }
+
+    private void compileExpr(ASTNode expr) {
+        switch (expr.getSymbol().getOpcode()) {
+            case Opcode.ITE: {
+                Label elseLabel = newLabel();
+                Label endLabel = newLabel();
+                jumpIfFalse(expr.getChild(0), elseLabel);
+                compileExpr(expr.getChild(1));
+                emitJump(GOTO, endLabel, 0);
+                // Only one of the branches pushes a value on the stack
+                stack--;
+                mark(elseLabel);
+                compileExpr(expr.getChild(2));
+                mark(endLabel);
+                break;
+            }
+            case Opcode.ADD:
+                compileExpr(expr.getChild(0));
+                compileExpr(expr.getChild(1));
+                emit(IADD, -1);
+                break;
+            case Opcode.MULTIPLY:
+                compileExpr(expr.getChild(0));
+                compileExpr(expr.getChild(1));
+                emit(IMUL, -1);
+                break;
+            case Opcode.VAR:
+                compileVar(expr);
+                break;
+            case Opcode.CONST:
+                compileConst(((Terminal) expr.getSymbol()).getValue());
+                break;
+            default:
+                throw new RuntimeException("Cannot compile expression " + expr);
+        }
+    }
+
+    private void compileVar(ASTNode v) {
+        Integer slot = slots.get(v.getSymbol().getName());
+        if (slot == null) {
+            throw new RuntimeException("Unknown variable " + v);
+        }
+        if (slot <= 3) {
+            emit(ILOAD_0 + slot, 1);
+        } else {
+            emit(ILOAD, 1);
+            code.write(slot);
+        }
+    }
+
+    private void compileConst(int value) {
+        if (value >= -1 && value <= 5) {
+            emit(ICONST_0 + value, 1);
+        } else if (value >= Byte.MIN_VALUE && value <= Byte.MAX_VALUE) {
+            emit(BIPUSH, 1);
+            code.write(value);
+        } else if (value >= Short.MIN_VALUE && value <= Short.MAX_VALUE) {
+            emit(SIPUSH, 1);
+            writeShort(value);
+        } else {
+            int index = pool.integer(value);
+            if (index <= 0xff) {
+                emit(LDC, 1);
+                code.write(index);
+            } else {
+                emit(LDC_W, 1);
+                writeShort(index);
+            }
+        }
+    }
+
+    /**
+     * Emit code that jumps to the label if the predicate is false and falls through otherwise
+     */
+    private void jumpIfFalse(ASTNode pred, Label label) {
+        switch (pred.getSymbol().getOpcode()) {
+            case Opcode.LT:
+                compileComparison(pred, IF_ICMPGE, label);
+                break;
+            case Opcode.EQ:
+                compileComparison(pred, IF_ICMPNE, label);
+                break;
+            case Opcode.AND:
+                jumpIfFalse(pred.getChild(0), label);
+                jumpIfFalse(pred.getChild(1), label);
+                break;
+            case Opcode.OR: {
+                Label trueLabel = newLabel();
+                jumpIfTrue(pred.getChild(0), trueLabel);
+                jumpIfFalse(pred.getChild(1), label);
+                mark(trueLabel);
+                break;
+            }
+            case Opcode.NOT:
+                jumpIfTrue(pred.getChild(0), label);
+                break;
+            default:
+                throw new RuntimeException("Cannot compile predicate " + pred);
+        }
+    }
+
+    /**
+     * Emit code that jumps to the label if the predicate is true and falls through otherwise
+     */
+    private void jumpIfTrue(ASTNode pred, Label label) {
+        switch (pred.getSymbol().getOpcode()) {
+            case Opcode.LT:
+                compileComparison(pred, IF_ICMPLT, label);
+                break;
+            case Opcode.EQ:
+                compileComparison(pred, IF_ICMPEQ, label);
+                break;
+            case Opcode.AND: {
+                Label falseLabel = newLabel();
+                jumpIfFalse(pred.getChild(0), falseLabel);
+                jumpIfTrue(pred.getChild(1), label);
+                mark(falseLabel);
+                break;
+            }
+            case Opcode.OR:
+                jumpIfTrue(pred.getChild(0), label);
+                jumpIfTrue(pred.getChild(1), label);
+                break;
+            case Opcode.NOT:
+                jumpIfFalse(pred.getChild(0), label);
+                break;
+            default:
+                throw new RuntimeException("Cannot compile predicate " + pred);
+        }
+    }
+
+    private void compileComparison(ASTNode pred, int opcode, Label label) {
+        compileExpr(pred.getChild(0));
+        compileExpr(pred.getChild(1));
+        emitJump(opcode, label, -2);
+    }
+
+    private void emit(int opcode, int stackDelta) {
+        code.write(opcode);
+        stack += stackDelta;
+        maxStack = Math.max(maxStack, stack);
+    }
+
+    private void emitJump(int opcode, Label label, int stackDelta) {
+        label.branches.add(code.size());
+        emit(opcode, stackDelta);
+        writeShort(0);
+    }
+
+    private void mark(Label label) {
+        label.position = code.size();
+    }
+
+    private void writeShort(int value) {
+        code.write((value >> 8) & 0xff);
+        code.write(value & 0xff);
+    }
+
+    private Label newLabel() {
+        Label label = new Label();
+        labels.add(label);
+        return label;
+    }
+
+    private byte[] toClassFile(String className) {
+        byte[] bytecode = code.toByteArray();
+        // Patch the branch offsets now that every label has a position
+        for (Label label : labels) {
+            for (int branch : label.branches) {
+                int offset = label.position - branch;
+                bytecode[branch + 1] = (byte) (offset >> 8);
+                bytecode[branch + 2] = (byte) offset;
+            }
+        }
+        return writeClassFile(className, bytecode);
+    }
+
+    private byte[] writeClassFile(String className, byte[] bytecode) {
+        StringBuilder descriptor = new StringBuilder("(");
+        for (int i = 0; i < slots.size(); i++) {
+            descriptor.append('I');
+        }
+        descriptor.append(")I");
+
+        int thisClass = pool.classRef(className);
+        int superClass = pool.classRef("java/lang/Object");
+        int methodName = pool.utf8(METHOD_NAME);
+        int methodDescriptor = pool.utf8(descriptor.toString());
+        int codeAttribute = pool.utf8("Code");
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(0xCAFEBABE);
+            out.writeShort(0);
+            out.writeShort(CLASS_FILE_VERSION);
+            pool.writeTo(out);
+            // public final super
+            out.writeShort(0x0031);
+            out.writeShort(thisClass);
+            out.writeShort(superClass);
+            // no interfaces and fields
+            out.writeShort(0);
+            out.writeShort(0);
+            // a single public static method
+            out.writeShort(1);
+            out.writeShort(0x0009);
+            out.writeShort(methodName);
+            out.writeShort(methodDescriptor);
+            out.writeShort(1);
+            out.writeShort(codeAttribute);
+            out.writeInt(12 + bytecode.length);
+            out.writeShort(maxStack);
+            out.writeShort(slots.size());
+            out.writeInt(bytecode.length);
+            out.write(bytecode);
+            // no exception table and code attributes
+            out.writeShort(0);
+            out.writeShort(0);
+            // no class attributes
+            out.writeShort(0);
+        } catch (IOException e) {
+            throw new RuntimeException("Cannot write class file", e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * A minimal constant pool supporting UTF-8 strings, classes and integers
+     */
+    private static class ConstantPool {
+        private static final int CONSTANT_UTF8 = 1;
+        private static final int CONSTANT_INTEGER = 3;
+        private static final int CONSTANT_CLASS = 7;
+
+        private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        private final DataOutputStream out = new DataOutputStream(bytes);
+        private final Map<String, Integer> entries = new HashMap<>();
+        private int count = 1;
+
+        int utf8(String value) {
+            Integer index = entries.get("U" + value);
+            if (index != null) return index;
+            try {
+                out.writeByte(CONSTANT_UTF8);
+                out.writeUTF(value);
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+            entries.put("U" + value, count);
+            return count++;
+        }
+
+        int classRef(String internalName) {
+            Integer index = entries.get("C" + internalName);
+            if (index != null) return index;
+            int name = utf8(internalName);
+            try {
+                out.writeByte(CONSTANT_CLASS);
+                out.writeShort(name);
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+            entries.put("C" + internalName, count);
+            return count++;
+        }
+
+        int integer(int value) {
+            Integer index = entries.get("I" + value);
+            if (index != null) return index;
+            try {
+                out.writeByte(CONSTANT_INTEGER);
+                out.writeInt(value);
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+            entries.put("I" + value, count);
+            return count++;
+        }
+
+        void writeTo(DataOutputStream classFile) throws IOException {
+            classFile.writeShort(count);
+            classFile.write(bytes.toByteArray());
+        }
+    }
+}
@@ -0,0 +1,231 @@
+package synth.core;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+import javax.management.Notification;
+import javax.management.NotificationEmitter;
+import javax.management.NotificationListener;
+import javax.management.openmbean.CompositeData;
+
+import com.sun.management.GarbageCollectionNotificationInfo;
+
+import synth.core.BudgetExceededException.Reason;
+
+/**
+ * The budget of a synthesis call: a wall-clock deadline, a maximum number of explored nodes, a maximum program size
+ * and a ceiling of the heap used after garbage collection. The search polls it for every node it explores, and stops with a
+ * BudgetExceededException telling which budget was hit. The search also stops once its thread is interrupted.
+ * A budget is shared by all threads of a search, and is meant for a single synthesis call, whose strategies
+ * may each take a copy.
+ */
+public class SearchBudget {
+    /**
+     * Number of nodes between two checks of the clock and the heap
+     */
+    private static final int POLL_INTERVAL = 256;
+
+    private final long deadline;
+    private final long maxNodes;
+    private final int maxSize;
+    private final long maxMemory;
+    /**
+     * the heap used after the last garbage collection in bytes, or a negative value before the first one
+     */
+    private final LongSupplier usedHeap;
+    private final AtomicLong nodes = new AtomicLong();
+    /**
+     * whether a node has been skipped for being larger than the maximum size
+     */
+    private volatile boolean sizeExceeded;
+
+    /**
+     * A budget that only stops the search once its thread is interrupted
+     */
+    public static SearchBudget unlimited() {
+        return new SearchBudget(0, 0, 0, 0);
+    }
+
+    /**
+     * @param timeout   the wall-clock time of the search in milliseconds, or 0 for no deadline
+     * @param maxNodes  the maximum number of nodes explored by the search, or 0 for no limit
+     * @param maxSize   the maximum size of the programs, or 0 for no limit
+     * @param maxMemory the maximum heap used after the last garbage collection in bytes, or 0 for no limit
+     */
+    public SearchBudget(long timeout, long maxNodes, int maxSize, long maxMemory) {
+        this(timeout, maxNodes, maxSize, maxMemory, () -> LiveHeap.INSTANCE.used);
+    }
+
+    /**
+     * @param usedHeap the heap used after the last garbage collection, e.g. a fixed value in tests
+     */
+    SearchBudget(long timeout, long maxNodes, int maxSize, long maxMemory, LongSupplier usedHeap) {
+        this.deadline = timeout > 0 ? System.nanoTime() + timeout * 1_000_000 : 0;
+        this.maxNodes = maxNodes > 0 ? maxNodes : Long.MAX_VALUE;
+        this.maxSize = maxSize > 0 ? maxSize : Integer.MAX_VALUE;
+        this.maxMemory = maxMemory > 0 ? maxMemory : Long.MAX_VALUE;
+        this.usedHeap = usedHeap;
+    }
+
+    private SearchBudget(SearchBudget budget) {
+        this.deadline = budget.deadline;
+        this.maxNodes = budget.maxNodes;
+        this.maxSize = budget.maxSize;
+        this.maxMemory = budget.maxMemory;
+        this.usedHeap = budget.usedHeap;
+    }
+
+    /**
+     * @return a budget with the same deadline and limits, but counting its own nodes and skipped sizes,
+     * e.g. for one of the strategies of a portfolio
+     */
+    public SearchBudget copy() {
+        return new SearchBudget(this);
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * @return the milliseconds left before the deadline, at least 1, or Long.MAX_VALUE if there is no deadline
+     */
+    public long getRemainingMillis() {
+        if (deadline == 0) {
+            return Long.MAX_VALUE;
+        }
+        return Math.max(1, (deadline - System.nanoTime()) / 1_000_000);
+    }
+
+    /**
+     * @return the number of nodes explored so far
+     */
+    public long getNodes() {
+        return nodes.get();
+    }
+
+    /**
+     * Count a node explored by the search and check the budget,
+     * reading the clock and the heap only once every POLL_INTERVAL nodes
+     *
+     * @throws BudgetExceededException if the budget is exceeded or the thread has been interrupted
+     */
+    public void check() {
+        long count = nodes.incrementAndGet();
+        if (count > maxNodes) {
+            throw new BudgetExceededException(Reason.NODES, "Explored more than " + maxNodes + " nodes");
+        }
+        if (count % POLL_INTERVAL == 0) {
+            poll();
+        } else if (Thread.currentThread().isInterrupted()) {
+            throw new BudgetExceededException(Reason.INTERRUPTED, "The synthesis has been interrupted");
+        }
+    }
+
+    /**
+     * Check the deadline, the heap and the interruption of the thread without counting a node
+     *
+     * @throws BudgetExceededException if the budget is exceeded or the thread has been interrupted
+     */
+    public void poll() {
+        if (Thread.currentThread().isInterrupted()) {
+            throw new BudgetExceededException(Reason.INTERRUPTED, "The synthesis has been interrupted");
+        }
+        if (deadline != 0 && System.nanoTime() - deadline > 0) {
+            throw new BudgetExceededException(Reason.DEADLINE, "The deadline has passed");
+        }
+        if (maxMemory != Long.MAX_VALUE) {
+            long used = usedHeap.getAsLong();
+            if (used > maxMemory) {
+                throw new BudgetExceededException(Reason.MEMORY, "Used " + (used >> 20) + "MB of heap");
+            }
+        }
+    }
+
+    /**
+     * Check if the programs derived from a node may fit in the maximum size.
+     * The size of a partial node is a lower bound of the size of its completions.
+     *
+     * @param node the AST node
+     * @return false if the node is larger than the maximum size, true otherwise
+     */
+    public boolean allows(ASTNode node) {
+        return allowsSize(node.size());
+    }
+
+    /**
+     * @param size the size of a program
+     * @return false if the size is larger than the maximum size, true otherwise
+     */
+    public boolean allowsSize(int size) {
+        if (size > maxSize) {
+            sizeExceeded = true;
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Called when the search has exhausted its search space without finding a program.
+     * The search space was cut by the maximum size if a node has been skipped for its size.
+     *
+     * @throws BudgetExceededException if a node has been skipped for its size
+     */
+    public void checkExhausted() {
+        if (sizeExceeded) {
+            throw new BudgetExceededException(Reason.SIZE, "No program of at most " + maxSize + " nodes");
+        }
+    }
+
+    /**
+     * The heap used after the last garbage collection, updated by the notifications of the collectors.
+     * Unlike the heap used at any moment, it does not count the garbage not collected yet, but it still counts
+     * the garbage of the old generation after a young collection, so it is an approximate upper bound of the live heap.
+     * The ceiling is not enforced before the first collection, which the JVM runs before it runs out of heap.
+     */
+    private static class LiveHeap implements NotificationListener {
+        private static final LiveHeap INSTANCE = new LiveHeap();
+
+        private final Set<String> heapPools = new HashSet<>();
+        /**
+         * the heap used after the last collection in bytes, or -1 before the first one
+         */
+        private volatile long used = -1;
+
+        private LiveHeap() {
+            for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+                if (pool.getType() == MemoryType.HEAP) {
+                    heapPools.add(pool.getName());
+                }
+            }
+            for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+                if (collector instanceof NotificationEmitter) {
+                    ((NotificationEmitter) collector).addNotificationListener(this, null, null);
+                }
+            }
+        }
+
+        @Override
+        public void handleNotification(Notification notification, Object handback) {
+            if (!GarbageCollectionNotificationInfo.GARBAGE_COLLECTION_NOTIFICATION.equals(notification.getType())) {
+                return;
+            }
+            GarbageCollectionNotificationInfo info = GarbageCollectionNotificationInfo.from((CompositeData) notification.getUserData());
+            long total = 0;
+            for (Map.Entry<String, MemoryUsage> entry : info.getGcInfo().getMemoryUsageAfterGc().entrySet()) {
+                if (heapPools.contains(entry.getKey())) {
+                    total += entry.getValue().getUsed();
+                }
+            }
+            used = total;
+        }
+    }
+}
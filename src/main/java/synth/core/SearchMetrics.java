@@ -0,0 +1,212 @@
+package synth.core;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Counters of the search of a synthesizer, accumulated over all its synthesis calls.
+ * The counters may be updated concurrently by the threads of a parallel search, and read live through JMX.
+ */
+public class SearchMetrics implements SearchMetricsMBean {
+    /**
+     * number of nodes taken from the work list, enumerated or constructed by the search
+     */
+    private final LongAdder nodesExplored = new LongAdder();
+    /**
+     * number of partial nodes expanded by the productions of the CFG
+     */
+    private final LongAdder nodesExpanded = new LongAdder();
+    /**
+     * number of complete programs evaluated on the examples
+     */
+    private final LongAdder programsEvaluated = new LongAdder();
+    /**
+     * number of evaluations by the concrete or abstract interpreters, including those of partial programs
+     */
+    private final LongAdder interpreterCalls = new LongAdder();
+    /**
+     * number of partial programs checked for feasibility by Z3
+     */
+    private final LongAdder z3Checks = new LongAdder();
+    /**
+     * number of partial programs pruned because they cannot satisfy the examples
+     */
+    private final LongAdder unsatPrunes = new LongAdder();
+    /**
+     * largest number of nodes in the work list
+     */
+    private final LongAccumulator workListPeak = new LongAccumulator(Math::max, 0);
+    /**
+     * number of expressions and predicates kept by divide-and-conquer, which satisfy distinct examples
+     */
+    private final LongAdder distinctExpressions = new LongAdder();
+    private final LongAdder distinctPredicates = new LongAdder();
+
+    public void incrementNodesExplored() {
+        nodesExplored.increment();
+    }
+
+    public void incrementNodesExpanded() {
+        nodesExpanded.increment();
+    }
+
+    public void incrementProgramsEvaluated() {
+        programsEvaluated.increment();
+    }
+
+    public void incrementInterpreterCalls() {
+        interpreterCalls.increment();
+    }
+
+    public void incrementZ3Checks() {
+        z3Checks.increment();
+    }
+
+    public void incrementUnsatPrunes() {
+        unsatPrunes.increment();
+    }
+
+    /**
+     * @param size the current size of the work list
+     */
+    public void updateWorkListPeak(long size) {
+        workListPeak.accumulate(size);
+    }
+
+    public void incrementDistinctExpressions() {
+        distinctExpressions.increment();
+    }
+
+    public void incrementDistinctPredicates() {
+        distinctPredicates.increment();
+    }
+
+    @Override
+    public long getNodesExplored() {
+        return nodesExplored.sum();
+    }
+
+    @Override
+    public long getNodesExpanded() {
+        return nodesExpanded.sum();
+    }
+
+    @Override
+    public long getProgramsEvaluated() {
+        return programsEvaluated.sum();
+    }
+
+    @Override
+    public long getInterpreterCalls() {
+        return interpreterCalls.sum();
+    }
+
+    @Override
+    public long getZ3Checks() {
+        return z3Checks.sum();
+    }
+
+    @Override
+    public long getUnsatPrunes() {
+        return unsatPrunes.sum();
+    }
+
+    @Override
+    public long getWorkListPeak() {
+        return workListPeak.get();
+    }
+
+    @Override
+    public long getDistinctExpressions() {
+        return distinctExpressions.sum();
+    }
+
+    @Override
+    public long getDistinctPredicates() {
+        return distinctPredicates.sum();
+    }
+
+    /**
+     * Add the counters of another search, e.g. of an enumerator used by the synthesizer
+     *
+     * @param other the metrics of the other search
+     */
+    public void add(SearchMetrics other) {
+        nodesExplored.add(other.getNodesExplored());
+        nodesExpanded.add(other.getNodesExpanded());
+        programsEvaluated.add(other.getProgramsEvaluated());
+        interpreterCalls.add(other.getInterpreterCalls());
+        z3Checks.add(other.getZ3Checks());
+        unsatPrunes.add(other.getUnsatPrunes());
+        workListPeak.accumulate(other.getWorkListPeak());
+        distinctExpressions.add(other.getDistinctExpressions());
+        distinctPredicates.add(other.getDistinctPredicates());
+    }
+
+    @Override
+    public void reset() {
+        nodesExplored.reset();
+        nodesExpanded.reset();
+        programsEvaluated.reset();
+        interpreterCalls.reset();
+        z3Checks.reset();
+        unsatPrunes.reset();
+        workListPeak.reset();
+        distinctExpressions.reset();
+        distinctPredicates.reset();
+    }
+
+    /**
+     * Register the counters with the platform MBean server, replacing the counters registered under the same name
+     *
+     * @param name the name of the search, e.g. the synthesizer or the job
+     * @return the object name of the counters
+     */
+    public ObjectName register(String name) {
+        try {
+            ObjectName objectName = new ObjectName("synth:type=SearchMetrics,name=" + ObjectName.quote(name));
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            if (server.isRegistered(objectName)) {
+                server.unregisterMBean(objectName);
+            }
+            server.registerMBean(this, objectName);
+            return objectName;
+        } catch (JMException e) {
+            throw new RuntimeException("Cannot register the search metrics " + name, e);
+        }
+    }
+
+    /**
+     * Unregister the counters registered under the given name, if they are still registered
+     *
+     * @param objectName the object name returned by register
+     */
+    public static void unregister(ObjectName objectName) {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            if (server.isRegistered(objectName)) {
+                server.unregisterMBean(objectName);
+            }
+        } catch (JMException e) {
+            throw new RuntimeException("Cannot unregister the search metrics " + objectName, e);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "nodesExplored=" + getNodesExplored()
+                + ", nodesExpanded=" + getNodesExpanded()
+                + ", programsEvaluated=" + getProgramsEvaluated()
+                + ", interpreterCalls=" + getInterpreterCalls()
+                + ", z3Checks=" + getZ3Checks()
+                + ", unsatPrunes=" + getUnsatPrunes()
+                + ", workListPeak=" + getWorkListPeak()
+                + ", distinctExpressions=" + getDistinctExpressions()
+                + ", distinctPredicates=" + getDistinctPredicates();
+    }
+}
@@ -0,0 +1,27 @@
+package synth.core;
+
+/**
+ * Management interface of the counters of a search, registered with the platform MBean server
+ * under synth:type=SearchMetrics,name=...
+ */
+public interface SearchMetricsMBean {
+    long getNodesExplored();
+
+    long getNodesExpanded();
+
+    long getProgramsEvaluated();
+
+    long getInterpreterCalls();
+
+    long getZ3Checks();
+
+    long getUnsatPrunes();
+
+    long getWorkListPeak();
+
+    long getDistinctExpressions();
+
+    long getDistinctPredicates();
+
+    void reset();
+}
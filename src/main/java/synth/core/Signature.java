@@ -0,0 +1,38 @@
+package synth.core;
+
+import java.util.Arrays;
+
+/**
+ * The output vector of a program over all examples, used as the key for observational equivalence.
+ * Predicates are encoded with 1 for true and 0 for false.
+ */
+public class Signature {
+    private final int[] values;
+    private final int hash;
+
+    public Signature(int[] values) {
+        this.values = values;
+        this.hash = Arrays.hashCode(values);
+    }
+
+    public int[] getValues() {
+        return values;
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (!(o instanceof Signature)) return false;
+        Signature other = (Signature) o;
+        return hash == other.hash && Arrays.equals(values, other.values);
+    }
+
+    @Override
+    public String toString() {
+        return Arrays.toString(values);
+    }
+}
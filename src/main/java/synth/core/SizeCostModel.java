@@ -0,0 +1,12 @@
+package synth.core;
+
+/**
+ * A cost model where the cost of a program is its size, each hole counting as one node
+ */
+public class SizeCostModel implements CostModel {
+
+    @Override
+    public int cost(ASTNode node) {
+        return node.size();
+    }
+}
@@ -0,0 +1,246 @@
+package synth.core;
+
+import synth.cfg.Symbol;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractQueue;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Logger;
+
+/**
+ * A FIFO work list whose nodes are spilled to temporary files once they exceed a memory budget.
+ * Nodes are kept in three parts: the head, which is polled from, the spilled segments on disk in FIFO order,
+ * and the tail, which is offered to. When the tail exceeds the budget, it is written to a new segment.
+ * When the head is empty, the oldest segment is read back into the head, or the tail becomes the head if
+ * nothing is spilled. Each of them holds at most one budget worth of nodes, thus at most two budgets worth
+ * of nodes are on the heap at any time.
+ */
+public class SpillingWorkList extends AbstractQueue<ASTNode> implements Closeable {
+    private static final Logger LOGGER = Logger.getLogger(SpillingWorkList.class.getName());
+
+    /**
+     * Estimated heap footprint of a node, i.e. the node object, its children list and its references
+     */
+    private static final long BYTES_PER_NODE = 64;
+
+    private final long budget;
+    private ArrayDeque<ASTNode> head = new ArrayDeque<>();
+    private ArrayDeque<ASTNode> tail = new ArrayDeque<>();
+    private final ArrayDeque<Segment> segments = new ArrayDeque<>();
+    private long headBytes = 0;
+    private long tailBytes = 0;
+    private int size = 0;
+
+    /**
+     * mapping between symbols and their ids in spilled segments
+     */
+    private final Map<Symbol, Integer> symbolIds = new HashMap<>();
+    private final List<Symbol> symbols = new ArrayList<>();
+
+    /**
+     * @param budget the heap budget of the work list in bytes
+     */
+    public SpillingWorkList(long budget) {
+        this.budget = budget;
+    }
+
+    /**
+     * A spilled segment of nodes in a temporary file
+     */
+    private static class Segment {
+        private final Path path;
+        private final int count;
+
+        Segment(Path path, int count) {
+            this.path = path;
+            this.count = count;
+        }
+    }
+
+    @Override
+    public boolean offer(ASTNode node) {
+        tail.addLast(node);
+        tailBytes += estimate(node);
+        size++;
+        if (tailBytes > budget) {
+            spill();
+        }
+        return true;
+    }
+
+    @Override
+    public ASTNode poll() {
+        if (head.isEmpty()) {
+            refill();
+        }
+        ASTNode node = head.pollFirst();
+        if (node != null) {
+            headBytes -= estimate(node);
+            size--;
+        }
+        return node;
+    }
+
+    @Override
+    public ASTNode peek() {
+        if (head.isEmpty()) {
+            refill();
+        }
+        return head.peekFirst();
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Only the nodes in memory are iterated, spilled nodes are not loaded back
+     */
+    @Override
+    public Iterator<ASTNode> iterator() {
+        List<ASTNode> nodes = new ArrayList<>(head);
+        nodes.addAll(tail);
+        return Collections.unmodifiableList(nodes).iterator();
+    }
+
+    @Override
+    public void close() {
+        for (Segment segment : segments) {
+            try {
+                Files.deleteIfExists(segment.path);
+            } catch (IOException e) {
+                LOGGER.warning("Cannot delete spilled segment " + segment.path);
+            }
+        }
+        segments.clear();
+        head.clear();
+        tail.clear();
+        size = 0;
+    }
+
+    /**
+     * @return the number of segments on disk
+     */
+    int getSegmentCount() {
+        return segments.size();
+    }
+
+    private long estimate(ASTNode node) {
+        return node.size() * BYTES_PER_NODE;
+    }
+
+    /**
+     * Write the tail to a new segment
+     */
+    private void spill() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            for (ASTNode node : tail) {
+                write(node, out);
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Cannot encode nodes", e);
+        }
+
+        try {
+            Path path = Files.createTempFile("synth-worklist-", ".bin");
+            path.toFile().deleteOnExit();
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+                ByteBuffer buffer = ByteBuffer.wrap(bytes.toByteArray());
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+            }
+            segments.addLast(new Segment(path, tail.size()));
+            LOGGER.fine("Spilled " + tail.size() + " nodes to " + path);
+        } catch (IOException e) {
+            throw new RuntimeException("Cannot spill the work list", e);
+        }
+        tail = new ArrayDeque<>();
+        tailBytes = 0;
+    }
+
+    /**
+     * Move the next nodes in FIFO order to the head
+     */
+    private void refill() {
+        Segment segment = segments.pollFirst();
+        if (segment == null) {
+            ArrayDeque<ASTNode> swap = head;
+            head = tail;
+            headBytes = tailBytes;
+            tail = swap;
+            tailBytes = 0;
+            return;
+        }
+
+        // Read the segment into the heap, so that no mapping of the file outlives its deletion
+        try (FileChannel channel = FileChannel.open(segment.path, StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocate((int) channel.size());
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer) < 0) {
+                    throw new IOException("Unexpected end of segment " + segment.path);
+                }
+            }
+            buffer.flip();
+            for (int i = 0; i < segment.count; i++) {
+                ASTNode node = read(buffer);
+                head.addLast(node);
+                headBytes += estimate(node);
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Cannot load the spilled work list", e);
+        } finally {
+            try {
+                Files.deleteIfExists(segment.path);
+            } catch (IOException e) {
+                LOGGER.warning("Cannot delete spilled segment " + segment.path);
+            }
+        }
+    }
+
+    /**
+     * Encode a node in pre-order as the symbol id followed by the number of children
+     */
+    private void write(ASTNode node, DataOutputStream out) throws IOException {
+        Integer id = symbolIds.get(node.getSymbol());
+        if (id == null) {
+            id = symbols.size();
+            symbols.add(node.getSymbol());
+            symbolIds.put(node.getSymbol(), id);
+        }
+        out.writeShort(id);
+        out.writeByte(node.getChildren().size());
+        for (ASTNode child : node.getChildren()) {
+            write(child, out);
+        }
+    }
+
+    private ASTNode read(ByteBuffer buffer) {
+        Symbol symbol = symbols.get(buffer.getShort() & 0xffff);
+        int childCount = buffer.get() & 0xff;
+        if (childCount == 0) {
+            return NodeFactory.create(symbol, Collections.emptyList());
+        }
+        List<ASTNode> children = new ArrayList<>(childCount);
+        for (int i = 0; i < childCount; i++) {
+            children.add(read(buffer));
+        }
+        return NodeFactory.create(symbol, children);
+    }
+}
@@ -0,0 +1,90 @@
+package synth.core;
+
+import synth.cfg.Terminal;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Mapping between variable names and their slot indices in the inputs of examples
+ */
+public class SymbolTable {
+    private final List<String> names;
+    private final Map<String, Integer> slots;
+    /**
+     * the variable last resolved to each slot, so that a variable of the grammar is checked against
+     * the names only once. A race between threads only repeats the check.
+     */
+    private final Terminal[] resolved;
+
+    public SymbolTable(List<String> names) {
+        this.names = Collections.unmodifiableList(new ArrayList<>(names));
+        this.slots = new HashMap<>();
+        for (int i = 0; i < names.size(); i++) {
+            slots.put(names.get(i), i);
+        }
+        this.resolved = new Terminal[names.size()];
+    }
+
+    /**
+     * @return the variable names in the order of their slots
+     */
+    public List<String> getNames() {
+        return names;
+    }
+
+    /**
+     * @param name the variable name
+     * @return the slot of the variable or -1 if the variable is unknown
+     */
+    public int getSlot(String name) {
+        Integer slot = slots.get(name);
+        return slot != null ? slot : -1;
+    }
+
+    /**
+     * Get the slot of a variable, which is its own slot if it has been resolved against this symbol table,
+     * otherwise the slot of its name
+     *
+     * @param var the variable
+     * @return the slot of the variable or -1 if the variable is unknown
+     */
+    public int getSlot(Terminal var) {
+        int slot = var.getSlot();
+        if (slot >= 0 && slot < resolved.length) {
+            if (resolved[slot] == var) {
+                return slot;
+            }
+            if (names.get(slot).equals(var.getName())) {
+                resolved[slot] = var;
+                return slot;
+            }
+        }
+        return getSlot(var.getName());
+    }
+
+    public int size() {
+        return names.size();
+    }
+
+    @Override
+    public int hashCode() {
+        return names.hashCode();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof SymbolTable)) return false;
+        SymbolTable other = (SymbolTable) o;
+        return names.equals(other.names);
+    }
+
+    @Override
+    public String toString() {
+        return names.toString();
+    }
+}
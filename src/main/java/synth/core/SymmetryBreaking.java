@@ -0,0 +1,252 @@
+package synth.core;
+
+import synth.cfg.CFG;
+import synth.cfg.NonTerminal;
+import synth.cfg.Opcode;
+import synth.cfg.Production;
+import synth.cfg.Symbol;
+import synth.cfg.Terminal;
+
+import java.util.EnumSet;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Normalization and symmetry-breaking rules applied when expanding partial programs.
+ * A rule rejects a node that is equivalent to a canonical node of at most the same size, so that
+ * the search never generates non-canonical programs while every program keeps a canonical equivalent.
+ * The only exception is constant predicates, which are dropped since an Ite on them is equivalent to one of its branches.
+ * The rules are given to each synthesizer, e.g. from synth.symmetry by Main.
+ * The rules only look at a node and its children, and a node with holes is rejected only if
+ * every completion of it is non-canonical, so checking every node rebuilt by an expansion is enough.
+ */
+public class SymmetryBreaking {
+    /**
+     * Result of comparing partial programs when a hole is reached before they differ
+     */
+    private static final int UNKNOWN = 2;
+
+    public enum Rule {
+        /**
+         * Add, Multiply, And, Or and Eq take their operands in order
+         */
+        COMMUTATIVITY,
+        /**
+         * Add, Multiply, And and Or nest to the right, e.g. Add(x, Add(y, z)) but not Add(Add(x, y), z)
+         */
+        ASSOCIATIVITY,
+        /**
+         * Multiply(E, 1) and Multiply(1, E) are E
+         */
+        IDENTITY,
+        /**
+         * Not(Not(B)) is B, and Ite(Not(B), E1, E2) is Ite(B, E2, E1)
+         */
+        DOUBLE_NEGATION,
+        /**
+         * And(B, B) and Or(B, B) are B, and Ite(B, E, E) is E
+         */
+        IDEMPOTENCE,
+        /**
+         * An expression without variables whose value is a constant of the grammar is that constant
+         */
+        CONSTANT_FOLDING,
+        /**
+         * Lt and Eq of the same operands, or of operands without variables, are constant
+         */
+        CONSTANT_PREDICATES
+    }
+
+    public static final SymmetryBreaking NONE = new SymmetryBreaking(EnumSet.noneOf(Rule.class));
+    public static final SymmetryBreaking ALL = new SymmetryBreaking(EnumSet.allOf(Rule.class));
+
+    private final Set<Rule> rules;
+
+    public SymmetryBreaking(Set<Rule> rules) {
+        this.rules = rules.isEmpty() ? EnumSet.noneOf(Rule.class) : EnumSet.copyOf(rules);
+    }
+
+    /**
+     * Parse the rules from a comma-separated list such as commutativity,identity, or all or none
+     *
+     * @param value the list of rules, or null for all rules
+     * @return the symmetry breaking
+     */
+    public static SymmetryBreaking parse(String value) {
+        if (value == null || value.isBlank() || "all".equals(value.trim())) {
+            return ALL;
+        } else if ("none".equals(value.trim())) {
+            return NONE;
+        }
+        Set<Rule> rules = EnumSet.noneOf(Rule.class);
+        for (String name : value.split(",")) {
+            try {
+                rules.add(Rule.valueOf(name.trim().toUpperCase(Locale.ROOT).replace('-', '_')));
+            } catch (IllegalArgumentException e) {
+                throw new RuntimeException("Unknown symmetry breaking rule: " + name, e);
+            }
+        }
+        return new SymmetryBreaking(rules);
+    }
+
+    public boolean isEnabled(Rule rule) {
+        return rules.contains(rule);
+    }
+
+    /**
+     * Check if a node may be completed to a canonical program
+     *
+     * @param node the AST node
+     * @param cfg  the context-free grammar
+     * @return false if every completion of the node is non-canonical, true otherwise
+     */
+    public boolean isCanonical(ASTNode node, CFG cfg) {
+        if (rules.isEmpty()) {
+            return true;
+        }
+        int opcode = node.getSymbol().getOpcode();
+        switch (opcode) {
+            case Opcode.ADD:
+            case Opcode.MULTIPLY:
+                if (opcode == Opcode.MULTIPLY && isEnabled(Rule.IDENTITY)
+                        && (isConstant(node.getChild(0).getSymbol(), 1) || isConstant(node.getChild(1).getSymbol(), 1))) {
+                    return false;
+                }
+                if (isEnabled(Rule.CONSTANT_FOLDING) && isFoldable(node, cfg)) {
+                    return false;
+                }
+                return isOrdered(node, false);
+            case Opcode.AND:
+            case Opcode.OR:
+                return isOrdered(node, isEnabled(Rule.IDEMPOTENCE));
+            case Opcode.EQ:
+            case Opcode.LT: {
+                ASTNode left = node.getChild(0);
+                ASTNode right = node.getChild(1);
+                int order = compare(left, right);
+                if (isEnabled(Rule.CONSTANT_PREDICATES)
+                        && (order == 0 || (left.isComplete() && right.isComplete() && !hasVariable(left) && !hasVariable(right)))) {
+                    return false;
+                }
+                return opcode != Opcode.EQ || !isEnabled(Rule.COMMUTATIVITY) || order != 1;
+            }
+            case Opcode.NOT:
+                return !isEnabled(Rule.DOUBLE_NEGATION) || node.getChild(0).getSymbol().getOpcode() != Opcode.NOT;
+            case Opcode.ITE:
+                if (isEnabled(Rule.DOUBLE_NEGATION) && node.getChild(0).getSymbol().getOpcode() == Opcode.NOT) {
+                    return false;
+                }
+                return !isEnabled(Rule.IDEMPOTENCE) || compare(node.getChild(1), node.getChild(2)) != 0;
+            default:
+                return true;
+        }
+    }
+
+    /**
+     * Check the associativity and commutativity of a binary operator, where the operands of a chain
+     * Op(a, Op(b, c)) must be ordered as a <= b <= c, and strictly ordered if the operator is idempotent
+     */
+    private boolean isOrdered(ASTNode node, boolean strict) {
+        ASTNode left = node.getChild(0);
+        ASTNode right = node.getChild(1);
+        boolean associative = isEnabled(Rule.ASSOCIATIVITY);
+        if (associative && left.getSymbol().equals(node.getSymbol())) {
+            return false;
+        }
+        // Compare with the first operand of the chain on the right
+        ASTNode next = associative && right.getSymbol().equals(node.getSymbol()) ? right.getChild(0) : right;
+        int order = compare(left, next);
+        if (strict && order == 0) {
+            return false;
+        }
+        return !isEnabled(Rule.COMMUTATIVITY) || order != 1;
+    }
+
+    /**
+     * Compare two partial programs by the symbols of their pre-order traversals
+     *
+     * @return -1, 0 or 1, or UNKNOWN if a hole is reached before the programs differ
+     */
+    static int compare(ASTNode a, ASTNode b) {
+        if (!a.getSymbol().isTerminal() || !b.getSymbol().isTerminal()) {
+            return UNKNOWN;
+        }
+        int order = compare(a.getSymbol(), b.getSymbol());
+        if (order != 0) {
+            return order;
+        }
+        for (int i = 0; i < a.getChildren().size(); i++) {
+            order = compare(a.getChild(i), b.getChild(i));
+            if (order != 0) {
+                return order;
+            }
+        }
+        return 0;
+    }
+
+    private static int compare(Symbol a, Symbol b) {
+        int order = Integer.compare(a.getOpcode(), b.getOpcode());
+        if (order == 0) {
+            order = a.getName().compareTo(b.getName());
+        }
+        return Integer.signum(order);
+    }
+
+    private static boolean isConstant(Symbol symbol, int value) {
+        return symbol.getOpcode() == Opcode.CONST && ((Terminal) symbol).getValue() == value;
+    }
+
+    private static boolean hasVariable(ASTNode node) {
+        if (node.getSymbol().getOpcode() == Opcode.VAR) {
+            return true;
+        }
+        for (ASTNode child : node.getChildren()) {
+            if (hasVariable(child)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Check if the node is an arithmetic expression without variables whose value is a constant of the grammar
+     */
+    private static boolean isFoldable(ASTNode node, CFG cfg) {
+        if (!node.isComplete() || hasVariable(node)) {
+            return false;
+        }
+        Integer value = fold(node);
+        if (value == null) {
+            return false;
+        }
+        for (NonTerminal symbol : cfg.getNonTerminals()) {
+            for (Production production : cfg.getProductions(symbol)) {
+                if (isConstant(production.getOperator(), value)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return the value of an expression made of constants, Add and Multiply, or null for other expressions
+     */
+    private static Integer fold(ASTNode node) {
+        switch (node.getSymbol().getOpcode()) {
+            case Opcode.CONST:
+                return ((Terminal) node.getSymbol()).getValue();
+            case Opcode.ADD:
+            case Opcode.MULTIPLY: {
+                Integer left = fold(node.getChild(0));
+                Integer right = fold(node.getChild(1));
+                if (left == null || right == null) {
+                    return null;
+                }
+                return node.getSymbol().getOpcode() == Opcode.ADD ? left + right : left * right;
+            }
+            default:
+                return null;
+        }
+    }
+}
@@ -2,6 +2,8 @@ package synth.core;
 
 import synth.cfg.CFG;
 
+import java.io.Closeable;
+import java.io.IOException;
 import java.util.Collections;
 import java.util.LinkedList;
 import java.util.List;
@@ -14,37 +16,99 @@ import static synth.core.Utils.isValid;
 public class TopDownEnumSynthesizer implements ISynthesizer {
     private static final Logger LOGGER = Logger.getLogger(TopDownEnumSynthesizer.class.getName());
 
+    private final WorkListFactory workListFactory;
+    private final SymmetryBreaking symmetryBreaking;
+    private final SearchMetrics metrics = new SearchMetrics();
+
+    public TopDownEnumSynthesizer() {
+        this((cfg, examples) -> new LinkedList<>());
+    }
+
+    /**
+     * @param workListFactory the factory of the work list, e.g. a priority work list to expand cheaper programs first
+     */
+    public TopDownEnumSynthesizer(WorkListFactory workListFactory) {
+        this(workListFactory, SymmetryBreaking.ALL);
+    }
+
+    /**
+     * @param workListFactory  the factory of the work list, e.g. a priority work list to expand cheaper programs first
+     * @param symmetryBreaking the symmetry-breaking rules applied when expanding nodes
+     */
+    public TopDownEnumSynthesizer(WorkListFactory workListFactory, SymmetryBreaking symmetryBreaking) {
+        this.workListFactory = workListFactory;
+        this.symmetryBreaking = symmetryBreaking;
+    }
+
+    @Override
+    public SearchMetrics getMetrics() {
+        return metrics;
+    }
+
     /**
      * Synthesize a program f(x, y, z) based on a context-free grammar and examples
      *
      * @param cfg      the context-free grammar
      * @param examples a list of examples
+     * @param budget   the budget polled by the search
      * @return the program or null to indicate synthesis failure
      */
     @Override
-    public Program synthesize(CFG cfg, List<Example> examples) {
+    public Program synthesize(CFG cfg, List<Example> examples, SearchBudget budget) {
+        // Evaluate every candidate over all examples at once
+        ExampleSet exampleSet = ExampleSet.of(examples);
         // Initialize the work list with the start symbol from CFG
-        Queue<ASTNode> workList = new LinkedList<>();
-        workList.add(new ASTNode(cfg.getStartSymbol(), Collections.emptyList()));
+        Queue<ASTNode> workList = workListFactory.create(cfg, exampleSet);
+        workList.add(NodeFactory.create(cfg.getStartSymbol(), Collections.emptyList()));
+        BatchInterpreter interpreter = new BatchInterpreter(exampleSet);
+        int[] outputs = exampleSet.getOutputs();
+
+        try {
+            return search(workList, cfg, interpreter, outputs, budget);
+        } finally {
+            // Release the spilled segments of the work list
+            if (workList instanceof Closeable) {
+                try {
+                    ((Closeable) workList).close();
+                } catch (IOException e) {
+                    LOGGER.warning("Cannot close the work list: " + e.getMessage());
+                }
+            }
+        }
+    }
 
+    private Program search(Queue<ASTNode> workList, CFG cfg, BatchInterpreter interpreter, int[] outputs,
+                           SearchBudget budget) {
         while (!workList.isEmpty()) {
+            budget.check();
             ASTNode node = workList.remove();
+            metrics.incrementNodesExplored();
+
+            // Skip the node if its programs exceed the maximum size
+            if (!budget.allows(node)) {
+                continue;
+            }
 
             // If the node is complete, evaluate the program and check if it satisfies all examples
             if (node.isComplete()) {
                 Program program = new Program(node);
 
                 LOGGER.fine("Evaluating program: " + program);
-                if (isValid(program, examples)) {
+                metrics.incrementProgramsEvaluated();
+                metrics.incrementInterpreterCalls();
+                if (isValid(program, interpreter, outputs)) {
                     return program;
                 }
             } 
             // Otherwise, expand the node
             else {
-                workList.addAll(expand(node, cfg));
+                workList.addAll(expand(node, cfg, symmetryBreaking));
+                metrics.incrementNodesExpanded();
+                metrics.updateWorkListPeak(workList.size());
             }
         }
 
+        budget.checkExhausted();
         return null;
     }
 }
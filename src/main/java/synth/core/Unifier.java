@@ -0,0 +1,18 @@
+package synth.core;
+
+import java.util.BitSet;
+
+/**
+ * Strategy to unify expressions and predicates, each covering some examples, into a single program
+ */
+public interface Unifier {
+    /**
+     * Unify the expressions and predicates to an AST node that can satisfy the given examples
+     *
+     * @param exprIndex the expressions by satisfied examples
+     * @param predIndex the predicates by satisfied examples
+     * @param examples  the examples to satisfy
+     * @return the unified AST node if exists, otherwise null
+     */
+    ASTNode unify(CoverageIndex exprIndex, CoverageIndex predIndex, BitSet examples);
+}
@@ -1,6 +1,7 @@
 package synth.core;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.stream.Collectors;
@@ -8,12 +9,13 @@ import java.util.stream.Collectors;
 import synth.cfg.CFG;
 import synth.cfg.NonTerminal;
 import synth.cfg.Production;
+import synth.jfr.ExpandEvent;
+import synth.jfr.ValidateEvent;
 
 /**
  * Utility functions for the synthesizer
  */
 public class Utils {
-
     /**
      * Check if a program satisfies all the examples
      * 
@@ -22,16 +24,29 @@ public class Utils {
      * @return true if the program satisfies all examples, false otherwise
      */
     public static boolean isValid(Program program, List<Example> examples) {
-        // Check if the program satisfies all examples
-        for (Example example : examples) {
-            int value = Interpreter.evaluate(program, example.getInput());
-            if (value != example.getOutput()) {
-                
-                return false;
-            }
-        }
+        ExampleSet exampleSet = ExampleSet.of(examples);
+        return isValid(program, new BatchInterpreter(exampleSet), exampleSet.getOutputs());
+    }
 
-        return true;
+    /**
+     * Check if a program satisfies all the examples by evaluating it over all examples at once
+     * 
+     * @param program
+     * @param interpreter the batch interpreter over the inputs of the examples
+     * @param outputs     the expected output of each example
+     * @return true if the program satisfies all examples, false otherwise
+     */
+    public static boolean isValid(Program program, BatchInterpreter interpreter, int[] outputs) {
+        ValidateEvent event = new ValidateEvent();
+        event.begin();
+        boolean valid = Arrays.equals(interpreter.evalExpr(program.getRoot()), outputs);
+        if (event.shouldCommit()) {
+            event.nodeSize = program.getRoot().size();
+            event.exampleCount = interpreter.getSize();
+            event.valid = valid;
+            event.commit();
+        }
+        return valid;
     }
 
     /**
@@ -42,9 +57,8 @@ public class Utils {
      * @return true if the predicate satisfies all examples, false otherwise
      */
     public static boolean isSatisfiable(ASTNode node, List<Example> examples) {
-        for (Example example : examples) {
-            Interpreter interpreter = new Interpreter(example.getInput());
-            if  (!interpreter.evalPred(node)) {
+        for (boolean value : BatchInterpreter.of(examples).evalPred(node)) {
+            if (!value) {
                 return false;
             }
         }
@@ -53,25 +67,41 @@ public class Utils {
     }
 
     /**
-     * Expand a node based on the context-free grammar
+     * Expand a node based on the context-free grammar, skipping the expanded nodes that are not canonical
      *
-     * @param root the node to be expanded
-     * @param cfg  the context-free grammar
+     * @param root             the node to be expanded
+     * @param cfg              the context-free grammar
+     * @param symmetryBreaking the symmetry-breaking rules
      * @return a list of expanded nodes
      */
-    public static List<ASTNode> expand(ASTNode root, CFG cfg) {
+    public static List<ASTNode> expand(ASTNode root, CFG cfg, SymmetryBreaking symmetryBreaking) {
+        ExpandEvent event = new ExpandEvent();
+        event.begin();
+        List<ASTNode> expandedNodes = expandFirstHole(root, cfg, symmetryBreaking);
+        if (event.shouldCommit()) {
+            event.nodeSize = root.size();
+            event.expandedCount = expandedNodes.size();
+            event.commit();
+        }
+        return expandedNodes;
+    }
+
+    private static List<ASTNode> expandFirstHole(ASTNode root, CFG cfg, SymmetryBreaking symmetryBreaking) {
         List<ASTNode> expandedNodes = new ArrayList<>();
 
         for (int i = 0; i < root.getChildren().size(); i++) {
             ASTNode child = root.getChild(i);
             if (!child.isComplete()) {
-                for (ASTNode expandedChild : expand(child, cfg)) {
+                for (ASTNode expandedChild : expandFirstHole(child, cfg, symmetryBreaking)) {
                     // Create a copy of the children list
                     List<ASTNode> children = new ArrayList<>(root.getChildren());
                     // Replace the incomplete child with the expanded child
                     children.set(i, expandedChild);
-                    // Create a new node with the updated children list
-                    expandedNodes.add(new ASTNode(root.getSymbol(), children));
+                    // Create a new node with the updated children list, unless it is not canonical
+                    ASTNode node = NodeFactory.create(root.getSymbol(), children);
+                    if (symmetryBreaking.isCanonical(node, cfg)) {
+                        expandedNodes.add(node);
+                    }
                 }
                 // Expand only the first incomplete child
                 return expandedNodes;
@@ -83,9 +113,9 @@ public class Utils {
         if (root.getSymbol().isNonTerminal()) {
             for (Production production : cfg.getProductions((NonTerminal) root.getSymbol())) {
                 // Create a new node with the operator and the argument symbols from the production
-                ASTNode node = new ASTNode(
+                ASTNode node = NodeFactory.create(
                     production.getOperator(),
-                    production.getArgumentSymbols().stream().map(s -> new ASTNode(s, Collections.emptyList())).collect(Collectors.toList())
+                    production.getArgumentSymbols().stream().map(s -> NodeFactory.create(s, Collections.emptyList())).collect(Collectors.toList())
                 );
                 expandedNodes.add(node);
             }
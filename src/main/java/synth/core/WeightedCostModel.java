@@ -0,0 +1,69 @@
+package synth.core;
+
+import synth.cfg.CFG;
+import synth.cfg.NonTerminal;
+import synth.cfg.Production;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A cost model where the cost of a program is the sum of the weights of its productions.
+ * A hole costs the weight of the cheapest production of its non-terminal, which is a lower bound of any completion.
+ */
+public class WeightedCostModel implements CostModel {
+    private static final int DEFAULT_WEIGHT = 1;
+
+    /**
+     * mapping from operator names to their weights
+     */
+    private final Map<String, Integer> weights;
+    /**
+     * mapping from non-terminal names to the weight of their cheapest production
+     */
+    private final Map<String, Integer> holeWeights = new HashMap<>();
+
+    public WeightedCostModel(CFG cfg, Map<String, Integer> weights) {
+        this.weights = weights;
+        for (NonTerminal symbol : cfg.getNonTerminals()) {
+            int min = Integer.MAX_VALUE;
+            for (Production production : cfg.getProductions(symbol)) {
+                min = Math.min(min, weights.getOrDefault(production.getOperator().getName(), DEFAULT_WEIGHT));
+            }
+            holeWeights.put(symbol.getName(), min);
+        }
+    }
+
+    /**
+     * Parse weights of the form Ite:3,Multiply:2
+     *
+     * @param text the weights, may be null or empty
+     * @return mapping from operator names to their weights
+     */
+    public static Map<String, Integer> parseWeights(String text) {
+        Map<String, Integer> weights = new HashMap<>();
+        if (text == null || text.isEmpty()) {
+            return weights;
+        }
+        for (String pair : text.split(",")) {
+            String[] tokens = pair.split(":");
+            assert tokens.length == 2 : "Parsing error in weight " + pair;
+            weights.put(tokens[0].trim(), Integer.parseInt(tokens[1].trim()));
+        }
+        return weights;
+    }
+
+    @Override
+    public int cost(ASTNode node) {
+        int cost;
+        if (node.getSymbol().isNonTerminal()) {
+            cost = holeWeights.getOrDefault(node.getSymbol().getName(), DEFAULT_WEIGHT);
+        } else {
+            cost = weights.getOrDefault(node.getSymbol().getName(), DEFAULT_WEIGHT);
+        }
+        for (ASTNode child : node.getChildren()) {
+            cost += cost(child);
+        }
+        return cost;
+    }
+}
@@ -0,0 +1,21 @@
+package synth.core;
+
+import synth.cfg.CFG;
+
+import java.util.Queue;
+
+/**
+ * A factory of work lists, which decides the order in which a search expands partial programs
+ */
+public interface WorkListFactory {
+
+    /**
+     * Create an empty work list for a synthesis task
+     *
+     * @param cfg      the context-free grammar
+     * @param examples the examples of the task
+     * @return the work list
+     */
+    public Queue<ASTNode> create(CFG cfg, ExampleSet examples);
+
+}
@@ -0,0 +1,389 @@
+package synth.core;
+
+import com.microsoft.z3.BoolExpr;
+import com.microsoft.z3.Context;
+import com.microsoft.z3.Expr;
+import com.microsoft.z3.Params;
+import com.microsoft.z3.Solver;
+import com.microsoft.z3.Status;
+import com.microsoft.z3.Z3Exception;
+import synth.jfr.Z3CheckEvent;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+
+/**
+ * Checker of whether a partial program can satisfy the examples using the Z3 SMT solver.
+ * The examples are split among workers, each of which owns a Z3 context, a translator and a solver per example,
+ * since a Z3 context must not be shared between threads. With more than one worker, the calling thread checks
+ * the examples of the first worker while the others check theirs on a fixed pool, and the remaining checks of
+ * the same node are interrupted on the first UNSAT.
+ * A native check does not see the interruption of its thread, so each check is bounded by the time left
+ * before the deadline of the search budget instead, and a check cut short counts as satisfiable.
+ * On UNSAT, the positions of the node in the UNSAT core are generalized into a forbidden pattern,
+ * so that the nodes sharing the infeasible fragment are rejected without calling Z3.
+ */
+public class Z3FeasibilityChecker implements Closeable {
+    private static final Logger LOGGER = Logger.getLogger(Z3FeasibilityChecker.class.getName());
+    /**
+     * Maximum time in milliseconds to wait for the interrupted checks to return before closing the contexts
+     */
+    private static final long CLOSE_TIMEOUT = 10_000;
+
+    private final List<Worker> workers = new ArrayList<>();
+    private final ForbiddenPatternIndex patterns;
+    /**
+     * pool running the workers but the first one, or null to run the only worker in the calling thread
+     */
+    private final ExecutorService pool;
+    /**
+     * number of nodes checked so far, which identifies the node whose checks may be interrupted
+     */
+    private final AtomicLong generations = new AtomicLong();
+
+    /**
+     * @param examples    a list of examples
+     * @param parallelism the number of workers
+     */
+    public Z3FeasibilityChecker(List<Example> examples, int parallelism) {
+        this(examples, parallelism, new ForbiddenPatternIndex(), SearchBudget.unlimited());
+    }
+
+    /**
+     * @param examples    a list of examples
+     * @param parallelism the number of workers
+     * @param patterns    the index of forbidden patterns to learn in, or null to not learn patterns
+     * @param budget      the budget whose deadline bounds each check
+     */
+    public Z3FeasibilityChecker(List<Example> examples, int parallelism, ForbiddenPatternIndex patterns,
+                                SearchBudget budget) {
+        this.patterns = patterns;
+        int size = Math.max(1, Math.min(parallelism, examples.size()));
+        for (int i = 0; i < size; i++) {
+            workers.add(new Worker(patterns, budget));
+        }
+        // Distribute the examples in a round-robin fashion
+        for (int i = 0; i < examples.size(); i++) {
+            workers.get(i % size).addExample(examples.get(i));
+        }
+        pool = size > 1 ? Executors.newFixedThreadPool(size - 1) : null;
+    }
+
+    /**
+     * Check if the AST node is satisfiable for all examples
+     *
+     * @param node the AST node
+     * @return true if the node is satisfiable for all examples, false otherwise
+     */
+    public boolean isSatisfiable(ASTNode node) {
+        if (patterns != null && patterns.matches(node)) {
+            LOGGER.fine("Pruning the node [" + node + "] as it matches a forbidden pattern");
+            return false;
+        }
+        AtomicBoolean unsatisfiable = new AtomicBoolean(false);
+        long generation = generations.incrementAndGet();
+        if (pool == null) {
+            return workers.get(0).isSatisfiable(node, unsatisfiable, generation);
+        }
+
+        List<Future<?>> futures = new ArrayList<>();
+        for (Worker worker : workers.subList(1, workers.size())) {
+            futures.add(pool.submit(() -> check(worker, node, unsatisfiable, generation)));
+        }
+        check(workers.get(0), node, unsatisfiable, generation);
+        try {
+            // The next node is only checked once every worker is done with this one
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new BudgetExceededException(BudgetExceededException.Reason.INTERRUPTED, "The synthesis has been interrupted");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof BudgetExceededException) {
+                throw (BudgetExceededException) e.getCause();
+            }
+            throw new RuntimeException("Cannot check " + node, e.getCause());
+        }
+        return !unsatisfiable.get();
+    }
+
+    /**
+     * Check the node against the examples of a worker, interrupting the checks of the node still running
+     * in the other workers if it is unsatisfiable
+     */
+    private void check(Worker worker, ASTNode node, AtomicBoolean unsatisfiable, long generation) {
+        if (!worker.isSatisfiable(node, unsatisfiable, generation)) {
+            for (Worker other : workers) {
+                if (other != worker) {
+                    other.interrupt(generation);
+                }
+            }
+        }
+    }
+
+    /**
+     * Interrupt the running checks from any thread, e.g. when a portfolio cancels the search.
+     * A native check does not see the interruption of its thread, so the Z3 contexts are interrupted,
+     * and the running and later checks throw a BudgetExceededException with the INTERRUPTED reason.
+     */
+    public void cancel() {
+        for (Worker worker : workers) {
+            worker.cancel();
+        }
+    }
+
+    /**
+     * Interrupt the running checks, then release the pool and the Z3 contexts once no check runs on them.
+     * A native check does not see the interruption of its thread, so the contexts are interrupted first,
+     * and left open if a check still runs after CLOSE_TIMEOUT rather than freed under it.
+     */
+    @Override
+    public void close() {
+        cancel();
+        if (pool != null) {
+            pool.shutdownNow();
+            // The caller may be closing the checker because it has been interrupted, which must not cut the wait short
+            boolean interrupted = Thread.interrupted();
+            boolean terminated = false;
+            try {
+                terminated = pool.awaitTermination(CLOSE_TIMEOUT, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                interrupted = true;
+            } finally {
+                if (interrupted) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            if (!terminated) {
+                LOGGER.warning("Z3 checks still running after " + CLOSE_TIMEOUT + " ms, leaving their contexts open");
+                return;
+            }
+        }
+        for (Worker worker : workers) {
+            worker.close();
+        }
+    }
+
+    /**
+     * A worker owning a Z3 context and the solvers of its examples
+     */
+    private static class Worker {
+        private final ForbiddenPatternIndex patterns;
+        private final SearchBudget budget;
+        private final Context ctx = new Context();
+        // Translate the subtrees shared by the partial programs once
+        private final Z3Translator translator = new Z3Translator(ctx);
+        private final List<Example> examples = new ArrayList<>();
+        private final List<Solver> solvers = new ArrayList<>();
+        /**
+         * generation of the node whose feasibility check is running, or 0 if none, guarded by the worker
+         */
+        private long checking = 0;
+        /**
+         * whether the worker has been cancelled, after which no check starts, guarded by the worker
+         */
+        private boolean cancelled = false;
+
+        Worker(ForbiddenPatternIndex patterns, SearchBudget budget) {
+            this.patterns = patterns;
+            this.budget = budget;
+        }
+
+        void addExample(Example example) {
+            Solver solver = ctx.mkSolver();
+            SymbolTable symbols = example.getSymbolTable();
+            for (int slot = 0; slot < symbols.size(); slot++) {
+                solver.add(ctx.mkEq(ctx.mkIntConst(symbols.getNames().get(slot)), ctx.mkInt(example.getValues()[slot])));
+            }
+            examples.add(example);
+            solvers.add(solver);
+        }
+
+        /**
+         * Check the node against the examples of the worker, stopping once any worker found it unsatisfiable
+         *
+         * @param node          the AST node
+         * @param unsatisfiable whether the node is unsatisfiable for some example
+         * @param generation    the generation of the node, whose checks may be interrupted by other workers
+         * @return false if the node is unsatisfiable for an example of the worker, true otherwise
+         */
+        boolean isSatisfiable(ASTNode node, AtomicBoolean unsatisfiable, long generation) {
+            try {
+                Expr expr = translator.toExpr(node);
+                for (int i = 0; i < solvers.size() && !unsatisfiable.get(); i++) {
+                    Example example = examples.get(i);
+                    Solver solver = solvers.get(i);
+
+                    // Using incremental solving to check if the node is satisfiable for the example
+                    solver.push();
+                    solver.add(ctx.mkEq(expr, ctx.mkInt(example.getOutput())));
+                    Status status = check(solver, node, generation);
+                    solver.pop();
+
+                    if (status == Status.UNSATISFIABLE) {
+                        LOGGER.fine("Pruning the node [" + node
+                                + "] as it is unsatisfiable for the example [" + example + "]");
+                        unsatisfiable.set(true);
+                        if (patterns != null) {
+                            learn(node, solver, example.getOutput());
+                        }
+                        return false;
+                    }
+                }
+                return true;
+            } catch (Z3Exception e) {
+                // Any call on a cancelled context may fail, e.g. with "push canceled", which is not a solver error
+                synchronized (this) {
+                    if (cancelled) {
+                        throw new BudgetExceededException(BudgetExceededException.Reason.INTERRUPTED,
+                                "The synthesis has been interrupted");
+                    }
+                }
+                throw e;
+            }
+        }
+
+        /**
+         * Learn a forbidden pattern from the UNSAT core of the node for an example.
+         * The definition of each position is asserted and tracked, so the core tells the positions the conflict
+         * depends on. Any program that agrees with the node on these positions and their ancestors conflicts too,
+         * so the other positions become wildcards.
+         *
+         * @param node   the AST node that is unsatisfiable for the example
+         * @param solver the solver of the example
+         * @param output the output of the example
+         */
+        private void learn(ASTNode node, Solver solver, int output) {
+            Map<BoolExpr, String> positions = new HashMap<>();
+            Set<String> core = new HashSet<>();
+            solver.push();
+            try {
+                Expr root = translator.toTrackedExpr(node, solver, positions);
+                solver.add(ctx.mkEq(root, ctx.mkInt(output)));
+                // The core is not interrupted by other workers, so that learning does not depend on their timing
+                if (check(solver, node, 0) != Status.UNSATISFIABLE) {
+                    return;
+                }
+                for (BoolExpr literal : solver.getUnsatCore()) {
+                    core.add(positions.get(literal));
+                }
+            } finally {
+                solver.pop();
+            }
+
+            ASTNode pattern = generalize(node, new StringBuilder(), core);
+            if (patterns.add(pattern, node)) {
+                LOGGER.fine("Learned the forbidden pattern [" + pattern + "] from the node [" + node + "]");
+            }
+        }
+
+        /**
+         * Check the assertions of a solver, recording the check as a JFR event
+         *
+         * @param solver     the solver of an example
+         * @param node       the AST node being checked
+         * @param generation the generation of the node for a feasibility check, or 0 for an UNSAT core,
+         *                   which cannot be interrupted
+         * @return the status of the check
+         */
+        private Status check(Solver solver, ASTNode node, long generation) {
+            long timeout = budget.getRemainingMillis();
+            if (timeout != Long.MAX_VALUE) {
+                // The check returns UNKNOWN once the deadline has passed, and the search then stops at its next poll
+                Params params = ctx.mkParams();
+                params.add("timeout", (int) Math.min(timeout, Integer.MAX_VALUE));
+                solver.setParameters(params);
+            }
+            Z3CheckEvent event = new Z3CheckEvent();
+            event.begin();
+            Status status;
+            synchronized (this) {
+                if (cancelled || Thread.currentThread().isInterrupted()) {
+                    throw new BudgetExceededException(BudgetExceededException.Reason.INTERRUPTED,
+                            "The synthesis has been interrupted");
+                }
+                checking = generation;
+            }
+            try {
+                status = solver.check();
+            } finally {
+                synchronized (this) {
+                    checking = 0;
+                }
+            }
+            // An interrupted check is UNKNOWN, which must not be mistaken for a satisfiable node
+            synchronized (this) {
+                if (cancelled) {
+                    throw new BudgetExceededException(BudgetExceededException.Reason.INTERRUPTED,
+                            "The synthesis has been interrupted");
+                }
+            }
+            if (event.shouldCommit()) {
+                event.nodeSize = node.size();
+                event.exampleCount = examples.size();
+                event.status = status.name();
+                event.core = generation == 0;
+                event.commit();
+            }
+            return status;
+        }
+
+        /**
+         * Replace the positions that are neither in the core nor ancestors of a position in the core by wildcards
+         */
+        private ASTNode generalize(ASTNode node, StringBuilder path, Set<String> core) {
+            boolean kept = core.contains(path.toString());
+            List<ASTNode> children = new ArrayList<>(node.getChildren().size());
+            for (int i = 0; i < node.getChildren().size(); i++) {
+                int length = path.length();
+                path.append('.').append(i);
+                ASTNode child = generalize(node.getChild(i), path, core);
+                path.setLength(length);
+                kept |= child.getSymbol() != ForbiddenPatternIndex.WILDCARD;
+                children.add(child);
+            }
+            return kept ? NodeFactory.create(node.getSymbol(), children) : ForbiddenPatternIndex.wildcard();
+        }
+
+        /**
+         * Interrupt the running check if it is a feasibility check of the given node, which then returns UNKNOWN.
+         * A check of another node, an UNSAT core or an idle context is left alone.
+         *
+         * @param generation the generation of the node found unsatisfiable
+         */
+        synchronized void interrupt(long generation) {
+            if (checking == generation) {
+                ctx.interrupt();
+            }
+        }
+
+        /**
+         * Interrupt the running check of any node, and prevent further checks.
+         * The context is interrupted once, as a later call reports the error of the call it cancelled, if any.
+         */
+        synchronized void cancel() {
+            if (!cancelled) {
+                cancelled = true;
+                ctx.interrupt();
+            }
+        }
+
+        void close() {
+            ctx.close();
+        }
+    }
+}
@@ -0,0 +1,182 @@
+package synth.core;
+
+import com.microsoft.z3.ArithExpr;
+import com.microsoft.z3.BoolExpr;
+import com.microsoft.z3.Context;
+import com.microsoft.z3.Expr;
+import com.microsoft.z3.Solver;
+
+import synth.cfg.Opcode;
+import synth.cfg.Terminal;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Translator of AST nodes to Z3 expressions.
+ * Complete subtrees are translated once and cached, so a subterm shared by many partial programs
+ * is only created once in the context. A hole is translated to a constant named after its position
+ * in the tree, e.g. E.1.0 for the first child of the second child of the root, and the constant is
+ * reused by every partial program with a hole at the same position.
+ */
+public class Z3Translator {
+    /**
+     * Default maximum number of cached complete subtrees
+     */
+    private static final int DEFAULT_CACHE_SIZE = 1 << 16;
+
+    private final Context ctx;
+    /**
+     * translations of complete subtrees, the least recently used one is evicted once the cache is full
+     */
+    private final Map<ASTNode, Expr> cache;
+    /**
+     * hole constants by position
+     */
+    private final Map<String, Expr> holes = new HashMap<>();
+
+    public Z3Translator(Context ctx) {
+        this(ctx, DEFAULT_CACHE_SIZE);
+    }
+
+    /**
+     * @param ctx       the Z3 context owning the expressions
+     * @param cacheSize the maximum number of cached complete subtrees
+     */
+    public Z3Translator(Context ctx, int cacheSize) {
+        this.ctx = ctx;
+        this.cache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<ASTNode, Expr> eldest) {
+                return size() > cacheSize;
+            }
+        };
+    }
+
+    public Context getContext() {
+        return ctx;
+    }
+
+    /**
+     * Convert the AST node to a Z3 expression
+     *
+     * @param node the AST node
+     * @return the Z3 expression
+     */
+    public Expr toExpr(ASTNode node) {
+        return toExpr(node, new StringBuilder());
+    }
+
+    /**
+     * @param node the AST node
+     * @param path the position of the node, which is restored before returning
+     * @return the Z3 expression
+     */
+    private Expr toExpr(ASTNode node, StringBuilder path) {
+        if (node.isComplete()) {
+            Expr expr = cache.get(node);
+            if (expr == null) {
+                expr = translate(node, path);
+                cache.put(node, expr);
+            }
+            return expr;
+        }
+        return translate(node, path);
+    }
+
+    private Expr translate(ASTNode node, StringBuilder path) {
+        if (node.getSymbol().getOpcode() == Opcode.HOLE) {
+            return hole(node, path);
+        }
+        Expr[] children = new Expr[node.getChildren().size()];
+        for (int i = 0; i < children.length; i++) {
+            int length = path.length();
+            path.append('.').append(i);
+            children[i] = toExpr(node.getChild(i), path);
+            path.setLength(length);
+        }
+        return apply(node, children);
+    }
+
+    /**
+     * Convert the AST node to a Z3 expression, where each node is named by a constant whose definition
+     * is asserted and tracked in the solver, so that an UNSAT core tells which positions are involved.
+     * The assertions must be popped by the caller.
+     *
+     * @param node      the AST node
+     * @param solver    the solver to assert the definitions in
+     * @param positions the position of each tracked assertion, filled by this method
+     * @return the constant naming the root
+     */
+    public Expr toTrackedExpr(ASTNode node, Solver solver, Map<BoolExpr, String> positions) {
+        return track(node, new StringBuilder(), solver, positions);
+    }
+
+    private Expr track(ASTNode node, StringBuilder path, Solver solver, Map<BoolExpr, String> positions) {
+        if (node.getSymbol().getOpcode() == Opcode.HOLE) {
+            return hole(node, path);
+        }
+        Expr[] children = new Expr[node.getChildren().size()];
+        for (int i = 0; i < children.length; i++) {
+            int length = path.length();
+            path.append('.').append(i);
+            children[i] = track(node.getChild(i), path, solver, positions);
+            path.setLength(length);
+        }
+        Expr value = apply(node, children);
+        Expr name = value instanceof BoolExpr ? ctx.mkBoolConst("@v" + path) : ctx.mkIntConst("@v" + path);
+        BoolExpr literal = ctx.mkBoolConst("@p" + path);
+        solver.assertAndTrack(ctx.mkEq(name, value), literal);
+        positions.put(literal, path.toString());
+        return name;
+    }
+
+    /**
+     * Apply the operator of the AST node to the Z3 expressions of its children
+     */
+    private Expr apply(ASTNode node, Expr[] children) {
+        switch (node.getSymbol().getOpcode()) {
+            case Opcode.ITE:
+                return ctx.mkITE((BoolExpr) children[0], children[1], children[2]);
+            case Opcode.VAR:
+                return ctx.mkIntConst(node.getSymbol().getName());
+            case Opcode.CONST:
+                return ctx.mkInt(((Terminal) node.getSymbol()).getValue());
+            case Opcode.ADD:
+                return ctx.mkAdd((ArithExpr) children[0], (ArithExpr) children[1]);
+            case Opcode.MULTIPLY:
+                return ctx.mkMul((ArithExpr) children[0], (ArithExpr) children[1]);
+            case Opcode.LT:
+                return ctx.mkLt((ArithExpr) children[0], (ArithExpr) children[1]);
+            case Opcode.EQ:
+                return ctx.mkEq(children[0], children[1]);
+            case Opcode.AND:
+                return ctx.mkAnd((BoolExpr) children[0], (BoolExpr) children[1]);
+            case Opcode.OR:
+                return ctx.mkOr((BoolExpr) children[0], (BoolExpr) children[1]);
+            case Opcode.NOT:
+                return ctx.mkNot((BoolExpr) children[0]);
+            default:
+                throw new RuntimeException("Unknown symbol: " + node.getSymbol());
+        }
+    }
+
+    /**
+     * Get the constant of the hole at the given position, i.e. a boolean constant for the non-terminal symbol B
+     * and an integer constant otherwise
+     */
+    private Expr hole(ASTNode node, StringBuilder path) {
+        String name = node.getSymbol().getName() + path;
+        Expr expr = holes.get(name);
+        if (expr == null) {
+            if ("B".equals(node.getSymbol().getName())) {
+                expr = ctx.mkBoolConst(name);
+            } else {
+                expr = ctx.mkIntConst(name);
+            }
+            holes.put(name, expr);
+        }
+        return expr;
+    }
+}
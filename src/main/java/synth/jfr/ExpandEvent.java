@@ -0,0 +1,26 @@
+package synth.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Expansion of the first hole of a partial program into the nodes of a batch
+ */
+@Name("synth.Expand")
+@Label("Expansion")
+@Description("Expansion of the first hole of a partial program")
+@Category("Synthesis")
+@Enabled(false)
+@StackTrace(false)
+public class ExpandEvent extends jdk.jfr.Event {
+    @Label("Node Size")
+    public int nodeSize;
+
+    @Label("Expanded Nodes")
+    @Description("Number of canonical nodes of the batch")
+    public int expandedCount;
+}
@@ -0,0 +1,33 @@
+package synth.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Enumeration of the next expression or predicate satisfying a distinct set of examples in divide-and-conquer
+ */
+@Name("synth.NextDistinctNode")
+@Label("Next Distinct Node")
+@Description("Enumeration of the next node satisfying a distinct set of examples")
+@Category("Synthesis")
+@Enabled(false)
+@StackTrace(false)
+public class NextDistinctNodeEvent extends jdk.jfr.Event {
+    @Label("Kind")
+    @Description("Expression or predicate")
+    public String kind;
+
+    @Label("Node Size")
+    public int nodeSize;
+
+    @Label("Example Count")
+    public int exampleCount;
+
+    @Label("Enumerated Nodes")
+    @Description("Number of nodes enumerated until a distinct one")
+    public int enumeratedCount;
+}
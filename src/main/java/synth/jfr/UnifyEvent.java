@@ -0,0 +1,32 @@
+package synth.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Unification of the expressions and predicates of divide-and-conquer into a program
+ */
+@Name("synth.Unify")
+@Label("Unification")
+@Description("Unification of the expressions and predicates into a program")
+@Category("Synthesis")
+@Enabled(false)
+@StackTrace(false)
+public class UnifyEvent extends jdk.jfr.Event {
+    @Label("Expression Count")
+    public int expressionCount;
+
+    @Label("Predicate Count")
+    public int predicateCount;
+
+    @Label("Example Count")
+    public int exampleCount;
+
+    @Label("Node Size")
+    @Description("Size of the unified program, or 0 if the unification failed")
+    public int nodeSize;
+}
@@ -0,0 +1,28 @@
+package synth.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Validation of a complete program against all examples
+ */
+@Name("synth.Validate")
+@Label("Validation")
+@Description("Validation of a complete program against all examples")
+@Category("Synthesis")
+@Enabled(false)
+@StackTrace(false)
+public class ValidateEvent extends jdk.jfr.Event {
+    @Label("Node Size")
+    public int nodeSize;
+
+    @Label("Example Count")
+    public int exampleCount;
+
+    @Label("Valid")
+    public boolean valid;
+}
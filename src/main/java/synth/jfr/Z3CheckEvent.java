@@ -0,0 +1,33 @@
+package synth.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A single Z3 check of a partial program against one example
+ */
+@Name("synth.Z3Check")
+@Label("Z3 Check")
+@Description("Check of the satisfiability of a partial program for an example by Z3")
+@Category("Synthesis")
+@Enabled(false)
+@StackTrace(false)
+public class Z3CheckEvent extends jdk.jfr.Event {
+    @Label("Node Size")
+    public int nodeSize;
+
+    @Label("Example Count")
+    @Description("Number of examples of the Z3 context running the check")
+    public int exampleCount;
+
+    @Label("Status")
+    public String status;
+
+    @Label("Core")
+    @Description("Whether the check computes an UNSAT core to learn a forbidden pattern")
+    public boolean core;
+}
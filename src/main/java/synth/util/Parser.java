@@ -1,11 +1,16 @@
 package synth.util;
 
 import synth.core.Example;
+import synth.core.ExampleSet;
+import synth.core.SymbolTable;
 
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 public class Parser {
 
@@ -15,35 +20,85 @@ public class Parser {
      *             Note that the equal sign "=", comma ",", and right arrow "->" are hard coded.
      *             Also note that the variable names are case-sensitive, and we use lower case x, y, z.
      * @return the example
+     * @throws RuntimeException if the text is not of this form
      */
     public static Example parseAnExample(String text) {
         String[] tokens = text.split("->");
-        assert tokens.length == 2 : "Parsing error in line " + text;
-        Map<String, Integer> input = new HashMap<>();
-        String[] pairs = tokens[0].trim().split(",");
+        if (tokens.length != 2) {
+            throw new RuntimeException("Parsing error in line " + text);
+        }
+        Map<String, Integer> input = parseInput(tokens[0]);
+        int output = Integer.parseInt(tokens[1].trim());
+        return new Example(input, output);
+    }
+
+    /**
+     * Parse the input of an example.
+     * @param text input of the form x=a, y=b, z=c
+     * @return mapping from the variable names to their values, in order of appearance
+     */
+    private static Map<String, Integer> parseInput(String text) {
+        Map<String, Integer> input = new LinkedHashMap<>();
+        String[] pairs = text.trim().split(",");
         for (String pair : pairs) {
             Map<String, Integer> map = parseVarValuePair(pair);
             for (String varName : map.keySet()) {
                 input.put(varName, map.get(varName));
             }
         }
-        int output = Integer.parseInt(tokens[1].trim());
-        return new Example(input, output);
+        return input;
     }
 
     /**
      * Parse a list of examples from a list of strings, ignoring empty lines.
+     * All examples share one symbol table, which assigns slots to variables in order of appearance.
      * @param lines a list of example strings
      * @return a list of examples
      */
     public static List<Example> parseAllExamples(List<String> lines) {
-        List<Example> examples = new ArrayList<>();
+        return parseExampleSet(lines).getExamples();
+    }
+
+    /**
+     * Parse an example set from a list of strings, ignoring empty lines.
+     * The symbol table is built once and shared by all examples, which should all give a value to the same variables.
+     * @param lines a list of example strings
+     * @return the example set
+     * @throws RuntimeException if a line is malformed, or if an example misses a variable
+     */
+    public static ExampleSet parseExampleSet(List<String> lines) {
+        List<Map<String, Integer>> inputs = new ArrayList<>();
+        List<Integer> outputs = new ArrayList<>();
+        Set<String> names = new LinkedHashSet<>();
         for (String line : lines) {
             if (!line.isEmpty()) {
-                examples.add(parseAnExample(line));
+                String[] tokens = line.split("->");
+                if (tokens.length != 2) {
+                    throw new RuntimeException("Parsing error in line " + line);
+                }
+                Map<String, Integer> input = parseInput(tokens[0]);
+                names.addAll(input.keySet());
+                inputs.add(input);
+                outputs.add(Integer.parseInt(tokens[1].trim()));
+            }
+        }
+
+        SymbolTable symbols = new SymbolTable(new ArrayList<>(names));
+        List<Example> examples = new ArrayList<>();
+        for (int i = 0; i < inputs.size(); i++) {
+            // Every example should give a value to every variable, which would otherwise be 0
+            if (inputs.get(i).size() != symbols.size()) {
+                Set<String> missing = new LinkedHashSet<>(names);
+                missing.removeAll(inputs.get(i).keySet());
+                throw new RuntimeException("Missing variables " + missing + " in example " + (i + 1));
             }
+            int[] values = new int[symbols.size()];
+            for (Map.Entry<String, Integer> entry : inputs.get(i).entrySet()) {
+                values[symbols.getSlot(entry.getKey())] = entry.getValue();
+            }
+            examples.add(new Example(symbols, values, outputs.get(i)));
         }
-        return examples;
+        return new ExampleSet(symbols, examples);
     }
 
     /**
@@ -53,7 +108,9 @@ public class Parser {
      */
     private static Map<String, Integer> parseVarValuePair(String text) {
         String[] tokens = text.split("=");
-        assert tokens.length == 2: "Parsing error in pair " + text;
+        if (tokens.length != 2) {
+            throw new RuntimeException("Parsing error in pair " + text);
+        }
         Map<String, Integer> map = new HashMap<>();
         String varName = tokens[0].trim();
         String valueText = tokens[1].trim();
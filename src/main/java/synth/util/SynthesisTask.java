@@ -1,11 +1,19 @@
 package synth.util;
 
+import java.nio.file.Paths;
 import java.util.List;
 import java.util.logging.Logger;
 
+import javax.management.ObjectName;
+
 import synth.cfg.CFG;
+import synth.core.BudgetExceededException;
+import synth.core.ExampleSet;
 import synth.core.ISynthesizer;
 import synth.core.Program;
+import synth.core.ProgramCompiler;
+import synth.core.SearchBudget;
+import synth.core.SearchMetrics;
 import synth.core.Example;
 
 public class SynthesisTask implements Runnable {
@@ -14,20 +22,44 @@ public class SynthesisTask implements Runnable {
     private ISynthesizer synthesizer;
     private CFG cfg;
     private List<Example> examples;
+    private SearchBudget budget;
 
     public SynthesisTask(ISynthesizer synthesizer, CFG cfg, List<Example> examples) {
+        this(synthesizer, cfg, examples, SearchBudget.unlimited());
+    }
+
+    public SynthesisTask(ISynthesizer synthesizer, CFG cfg, List<Example> examples, SearchBudget budget) {
         this.synthesizer = synthesizer;
         this.cfg = cfg;
         this.examples = examples;
+        this.budget = budget;
     }
 
     @Override
     public void run() {
+        // Expose the counters of the search through JMX while it runs, e.g. to jconsole
+        ObjectName metricsName = synthesizer.getMetrics().register(synthesizer.getClass().getSimpleName());
         long startTime = System.currentTimeMillis();
-        Program program = synthesizer.synthesize(cfg, examples);
+        Program program;
+        try {
+            program = synthesizer.synthesize(cfg, examples, budget);
+        } catch (BudgetExceededException e) {
+            LOGGER.info("Unable to synthesize a program within the " + e.getReason() + " budget: " + e.getMessage());
+            return;
+        } finally {
+            SearchMetrics.unregister(metricsName);
+            LOGGER.info("Search metrics: " + synthesizer.getMetrics());
+        }
         long endTime = System.currentTimeMillis();
 
         LOGGER.info("Time taken: " + (endTime - startTime) + "ms");
         System.out.println(program);
+
+        // Export the program as a compiled class if requested, e.g. -Dsynth.export=Program.class
+        String exportPath = System.getProperty("synth.export");
+        if (program != null && exportPath != null) {
+            ProgramCompiler.export(program, ExampleSet.of(examples).getSymbolTable().getNames(), Paths.get(exportPath));
+            LOGGER.info("Exported the program to " + exportPath);
+        }
     }
 }
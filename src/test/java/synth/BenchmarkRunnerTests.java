@@ -0,0 +1,84 @@
+package synth;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Tests for the reports of the benchmark runner and the rules of its comparison with a baseline.
+ */
+public class BenchmarkRunnerTests {
+
+    private BenchmarkRunner.Result result(String status, long time, int size) {
+        return new BenchmarkRunner.Result("P1", "top-down", status, time, 42, size, "Add(x, y)");
+    }
+
+    @Test
+    public void testCsvRoundTrip() throws IOException {
+        List<BenchmarkRunner.Result> results = List.of(
+                new BenchmarkRunner.Result("P1", "top-down", "OK", 12, 345, 5, "Ite(Lt(x, \"y\"), x, y)"),
+                new BenchmarkRunner.Result("P2", "divide-conquer", "TIMEOUT", 10000, 67890, 0, null));
+        Path path = Files.createTempFile("synth-benchmark", ".csv");
+        try {
+            Files.write(path, BenchmarkRunner.toCsv(results));
+            List<BenchmarkRunner.Result> read = BenchmarkRunner.readCsv(path);
+            Assert.assertEquals(results.size(), read.size());
+            for (int i = 0; i < results.size(); i++) {
+                BenchmarkRunner.Result expected = results.get(i);
+                BenchmarkRunner.Result actual = read.get(i);
+                Assert.assertEquals(expected.key(), actual.key());
+                Assert.assertEquals(expected.status, actual.status);
+                Assert.assertEquals(expected.time, actual.time);
+                Assert.assertEquals(expected.nodes, actual.nodes);
+                Assert.assertEquals(expected.size, actual.size);
+                Assert.assertEquals(expected.program, actual.program);
+            }
+        } finally {
+            Files.delete(path);
+        }
+    }
+
+    @Test
+    public void testJsonEscapesStrings() {
+        String json = BenchmarkRunner.toJson(List.of(
+                new BenchmarkRunner.Result("P\"1", "top-down", "OK", 12, 345, 5, "Add(\"x\", \\y)")));
+        Assert.assertTrue(json, json.contains("\"benchmark\": \"P\\\"1\""));
+        Assert.assertTrue(json, json.contains("\"program\": \"Add(\\\"x\\\", \\\\y)\""));
+    }
+
+    @Test
+    public void testCompareStatus() {
+        // Only a result solved by the baseline can regress
+        Assert.assertEquals(List.of("P1,top-down status OK -> TIMEOUT"),
+                BenchmarkRunner.compare(List.of(result("TIMEOUT", 10000, 0)), List.of(result("OK", 100, 3)), 1.5));
+        Assert.assertEquals(List.of(),
+                BenchmarkRunner.compare(List.of(result("FAIL", 100, 0)), List.of(result("FAIL", 100, 0)), 1.5));
+        Assert.assertEquals(List.of(), BenchmarkRunner.compare(List.of(result("FAIL", 100, 0)), List.of(), 1.5));
+    }
+
+    @Test
+    public void testCompareTime() {
+        List<BenchmarkRunner.Result> fast = List.of(result("OK", 20, 3));
+        // Above the threshold, but within the noise
+        Assert.assertEquals(List.of(), BenchmarkRunner.compare(List.of(result("OK", 60, 3)), fast, 1.5));
+        Assert.assertEquals(List.of("P1,top-down time 20ms -> 100ms"),
+                BenchmarkRunner.compare(List.of(result("OK", 100, 3)), fast, 1.5));
+        // Beyond the noise, but within the threshold
+        List<BenchmarkRunner.Result> slow = List.of(result("OK", 1000, 3));
+        Assert.assertEquals(List.of(), BenchmarkRunner.compare(List.of(result("OK", 1400, 3)), slow, 1.5));
+        Assert.assertEquals(List.of("P1,top-down time 1000ms -> 1600ms"),
+                BenchmarkRunner.compare(List.of(result("OK", 1600, 3)), slow, 1.5));
+    }
+
+    @Test
+    public void testCompareSize() {
+        List<BenchmarkRunner.Result> baseline = List.of(result("OK", 100, 5));
+        Assert.assertEquals(List.of("P1,top-down size 5 -> 7"),
+                BenchmarkRunner.compare(List.of(result("OK", 100, 7)), baseline, 1.5));
+        Assert.assertEquals(List.of(), BenchmarkRunner.compare(List.of(result("OK", 100, 3)), baseline, 1.5));
+    }
+}
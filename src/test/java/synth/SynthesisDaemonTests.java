@@ -0,0 +1,94 @@
+package synth;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Tests for the line protocol of the synthesis daemon over a local socket.
+ */
+public class SynthesisDaemonTests {
+
+    private String readResponse(BufferedReader reader) throws IOException {
+        String line = reader.readLine();
+        Assert.assertNotNull("The connection was closed", line);
+        return line;
+    }
+
+    @Test(timeout = 30000)
+    public void testSocketRoundTrip() throws Exception {
+        SynthesisDaemon daemon = new SynthesisDaemon(2, 4, 10_000);
+        ServerSocket server = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+        Thread listener = new Thread(() -> {
+            try {
+                daemon.listen(server);
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        });
+        listener.start();
+
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), server.getLocalPort())) {
+            PrintWriter writer = new PrintWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8), true);
+            BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+
+            writer.println("JOB sum default 10000");
+            writer.println("x=1, y=2, z=3 -> 3");
+            writer.println("x=2, y=5, z=1 -> 7");
+            writer.println("END");
+            Assert.assertEquals("ACCEPTED sum", readResponse(reader));
+            String result = readResponse(reader);
+            Assert.assertTrue(result, result.matches("RESULT sum OK \\d+ .+"));
+
+            writer.println("HELLO");
+            Assert.assertEquals("ERROR Invalid command: HELLO", readResponse(reader));
+
+            // A malformed example is rejected rather than failing the connection
+            writer.println("JOB malformed default 10000");
+            writer.println("x=1, y=2, z=3 3");
+            writer.println("END");
+            Assert.assertEquals("REJECTED malformed Parsing error in line x=1, y=2, z=3 3", readResponse(reader));
+
+            // No program maps the same input to two outputs, so the search runs until the deadline
+            writer.println("JOB never default 300");
+            writer.println("x=1, y=1, z=1 -> 1");
+            writer.println("x=1, y=1, z=1 -> 2");
+            writer.println("END");
+            // A job with the id of an admitted job is rejected
+            writer.println("JOB never default 300");
+            writer.println("x=1, y=1, z=1 -> 1");
+            writer.println("END");
+            List<String> responses = new ArrayList<>();
+            for (int i = 0; i < 3; i++) {
+                responses.add(readResponse(reader));
+            }
+            Assert.assertEquals("ACCEPTED never", responses.get(0));
+            Assert.assertTrue(responses.toString(), responses.contains("REJECTED never duplicate job id"));
+            Assert.assertTrue(responses.toString(), responses.stream().anyMatch(line -> line.matches("RESULT never TIMEOUT \\d+")));
+
+            writer.println("QUIT");
+            Assert.assertNull(reader.readLine());
+        }
+        listener.join();
+        Assert.assertTrue(server.isClosed());
+        daemon.shutdown();
+    }
+
+    @Test
+    public void testDescribe() {
+        Assert.assertEquals("Missing variables [y] in example 1",
+                SynthesisDaemon.describe(new RuntimeException("Missing variables [y]\r\n  in example 1\n")));
+        Assert.assertEquals("NullPointerException", SynthesisDaemon.describe(new NullPointerException()));
+    }
+}
@@ -0,0 +1,36 @@
+package synth.cfg;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests for the resolution of terminal symbols.
+ */
+public class TerminalTests {
+
+    @Test
+    public void testResolveOpcodes() {
+        Assert.assertEquals(Opcode.ADD, new Terminal("Add").getOpcode());
+        Assert.assertEquals(Opcode.CONST, new Terminal("-3").getOpcode());
+        Assert.assertEquals(-3, new Terminal("-3").getValue());
+        Assert.assertEquals(Opcode.VAR, new Terminal("x").getOpcode());
+        Assert.assertEquals(Opcode.VAR, new Terminal("w", 3).getOpcode());
+    }
+
+    @Test(expected = RuntimeException.class)
+    public void testMisspelledOperator() {
+        new Terminal("Mul");
+    }
+
+    @Test(expected = RuntimeException.class)
+    public void testVariableShadowingOperator() {
+        new Terminal("Add", 0);
+    }
+
+    @Test
+    public void testSlotIsPartOfEquality() {
+        Assert.assertEquals(new Terminal("w", 3), new Terminal("w", 3));
+        Assert.assertNotEquals(new Terminal("w", 3), new Terminal("w", 0));
+        Assert.assertNotEquals(new Terminal("x"), new Terminal("x", 0));
+    }
+}
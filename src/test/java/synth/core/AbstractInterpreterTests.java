@@ -0,0 +1,51 @@
+package synth.core;
+
+import org.junit.Assert;
+import org.junit.Test;
+import synth.util.Parser;
+
+import java.util.List;
+
+import static synth.core.TestNodes.B;
+import static synth.core.TestNodes.E;
+import static synth.core.TestNodes.hole;
+import static synth.core.TestNodes.leaf;
+import static synth.core.TestNodes.node;
+
+/**
+ * Tests for the abstract interpreter, which must never refute a node that has a satisfying completion.
+ */
+public class AbstractInterpreterTests {
+
+    private AbstractInterpreter buildInterpreter(String... lines) {
+        return new AbstractInterpreter(Parser.parseExampleSet(List.of(lines)));
+    }
+
+    @Test
+    public void testRefutesByParity() {
+        AbstractInterpreter interpreter = buildInterpreter("x=2, y=3, z=0 -> -1");
+        // Multiply(Add(x, E), 2) is even whatever the hole
+        Assert.assertTrue(interpreter.refutes(node("Multiply", node("Add", leaf("x"), hole(E)), leaf("2"))));
+        Assert.assertFalse(interpreter.refutes(node("Add", leaf("x"), hole(E))));
+    }
+
+    @Test
+    public void testRefutesByInterval() {
+        AbstractInterpreter interpreter = buildInterpreter("x=2, y=3, z=0 -> 5", "x=4, y=1, z=0 -> 1");
+        // Lt(x, y) holds on the first example, where the node is then 1
+        Assert.assertTrue(interpreter.refutes(node("Ite", node("Lt", leaf("x"), leaf("y")), leaf("1"), hole(E))));
+        Assert.assertFalse(interpreter.refutes(node("Ite", node("Lt", leaf("x"), leaf("y")), hole(E), leaf("1"))));
+        // Ite(B, 1, 2) is within [1, 2] on every example
+        Assert.assertTrue(interpreter.refutes(node("Ite", hole(B), leaf("1"), leaf("2"))));
+    }
+
+    @Test
+    public void testCompleteProgramIsExact() {
+        AbstractInterpreter interpreter = buildInterpreter("x=2, y=3, z=7 -> 17");
+        ASTNode expr = node("Add", node("Multiply", leaf("x"), leaf("z")), node("Ite",
+                node("Or", node("Eq", leaf("x"), leaf("y")), node("Not", node("Lt", leaf("z"), leaf("y")))),
+                leaf("y"), leaf("1")));
+        Assert.assertFalse(interpreter.refutes(expr));
+        Assert.assertTrue(interpreter.refutes(node("Add", expr, leaf("1"))));
+    }
+}
@@ -0,0 +1,62 @@
+package synth.core;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static synth.core.TestNodes.leaf;
+import static synth.core.TestNodes.node;
+
+/**
+ * Tests for the batch interpreter, which should agree with the interpreter on every example.
+ */
+public class BatchInterpreterTests {
+
+    /**
+     * Build examples where x, y, z range over [-2, 3]
+     *
+     * @return a list of examples with a dummy output
+     */
+    private List<Example> buildExamples() {
+        List<Example> examples = new ArrayList<>();
+        for (int x = -2; x <= 3; x++) {
+            for (int y = -2; y <= 3; y++) {
+                for (int z = -2; z <= 3; z++) {
+                    examples.add(new Example(Map.of("x", x, "y", y, "z", z), 0));
+                }
+            }
+        }
+        return examples;
+    }
+
+    @Test
+    public void testBatchExpression() {
+        // Ite(Or(Lt(x, y), Not(Eq(z, 2))), Add(x, Multiply(y, z)), 3)
+        ASTNode expr = node("Ite",
+                node("Or", node("Lt", leaf("x"), leaf("y")), node("Not", node("Eq", leaf("z"), leaf("2")))),
+                node("Add", leaf("x"), node("Multiply", leaf("y"), leaf("z"))),
+                leaf("3"));
+        List<Example> examples = buildExamples();
+        int[] values = BatchInterpreter.of(examples).evalExpr(expr);
+        Assert.assertEquals(examples.size(), values.length);
+        for (int i = 0; i < examples.size(); i++) {
+            Assert.assertEquals(Interpreter.evaluate(new Program(expr), examples.get(i).getInput()), values[i]);
+        }
+    }
+
+    @Test
+    public void testBatchPredicate() {
+        // And(Lt(x, Add(y, 1)), Not(Lt(z, x)))
+        ASTNode pred = node("And",
+                node("Lt", leaf("x"), node("Add", leaf("y"), leaf("1"))),
+                node("Not", node("Lt", leaf("z"), leaf("x"))));
+        List<Example> examples = buildExamples();
+        boolean[] values = BatchInterpreter.of(examples).evalPred(pred);
+        for (int i = 0; i < examples.size(); i++) {
+            Assert.assertEquals(new Interpreter(examples.get(i).getInput()).evalPred(pred), values[i]);
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package synth.core;
+
+import org.junit.Assert;
+import org.junit.Test;
+import synth.util.Parser;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+
+import static synth.core.TestNodes.B;
+import static synth.core.TestNodes.E;
+import static synth.core.TestNodes.buildReducedCFG;
+import static synth.core.TestNodes.hole;
+import static synth.core.TestNodes.leaf;
+import static synth.core.TestNodes.node;
+
+/**
+ * Tests for the cost models and the order in which the priority work list returns programs.
+ */
+public class CostModelTests {
+
+    private List<ASTNode> drain(Queue<ASTNode> workList) {
+        List<ASTNode> nodes = new ArrayList<>();
+        while (!workList.isEmpty()) {
+            nodes.add(workList.remove());
+        }
+        return nodes;
+    }
+
+    @Test
+    public void testSizeOrder() {
+        Queue<ASTNode> workList = new PriorityWorkList(new SizeCostModel());
+        ASTNode large = node("Add", node("Add", leaf("x"), leaf("y")), hole(E));
+        ASTNode small = leaf("x");
+        ASTNode medium = node("Add", leaf("y"), hole(E));
+        ASTNode mediumLater = node("Add", hole(E), leaf("1"));
+        workList.addAll(List.of(large, small, medium, mediumLater));
+        // Programs of equal cost are returned in insertion order
+        Assert.assertEquals(List.of(small, medium, mediumLater, large), drain(workList));
+    }
+
+    @Test
+    public void testWeightedCost() {
+        CostModel costModel = new WeightedCostModel(buildReducedCFG(E), WeightedCostModel.parseWeights("Ite:3, Add:2"));
+        Assert.assertEquals(1, costModel.cost(leaf("x")));
+        // A hole costs its cheapest production, i.e. a leaf
+        Assert.assertEquals(2 + 1 + 1, costModel.cost(node("Add", leaf("x"), hole(E))));
+        Assert.assertEquals(3 + 1 + 1 + 1 + 1 + 1, costModel.cost(node("Ite", node("Lt", leaf("x"), leaf("y")), hole(E), hole(E))));
+
+        Queue<ASTNode> workList = new PriorityWorkList(costModel);
+        ASTNode ite = node("Ite", hole(B), hole(E), hole(E));
+        ASTNode add = node("Add", hole(E), hole(E));
+        workList.addAll(List.of(ite, add));
+        Assert.assertEquals(List.of(add, ite), drain(workList));
+    }
+
+    @Test
+    public void testDistanceOrder() {
+        // Outputs of Add(x, 1)
+        ExampleSet examples = Parser.parseExampleSet(List.of("x=1, y=5 -> 2", "x=4, y=0 -> 5", "x=-2, y=3 -> -1"));
+        CostModel costModel = new DistanceCostModel(new SizeCostModel(), examples, 6);
+        ASTNode close = node("Ite", hole(B), node("Add", leaf("x"), leaf("1")), hole(E));
+        ASTNode far = node("Ite", hole(B), node("Add", leaf("y"), leaf("1")), hole(E));
+        ASTNode none = node("Ite", hole(B), hole(E), hole(E));
+        // The distance is the weight scaled by the smallest fraction of wrong examples, rounded up
+        Assert.assertEquals(close.size(), costModel.cost(close));
+        Assert.assertEquals(far.size() + 6, costModel.cost(far));
+        Assert.assertEquals(none.size() + 6, costModel.cost(none));
+
+        Queue<ASTNode> workList = new PriorityWorkList(costModel);
+        workList.addAll(List.of(far, none, close));
+        Assert.assertEquals(List.of(close, none, far), drain(workList));
+    }
+
+    @Test
+    public void testDistanceCacheIsBounded() {
+        ExampleSet examples = Parser.parseExampleSet(List.of("x=1, y=5 -> 2", "x=4, y=0 -> 5"));
+        DistanceCostModel costModel = new DistanceCostModel(new SizeCostModel(), examples, 6, 4);
+        ASTNode expr = leaf("x");
+        for (int i = 0; i < 20; i++) {
+            expr = node("Add", expr, leaf("1"));
+            costModel.cost(expr);
+        }
+        Assert.assertEquals(4, costModel.getCacheSize());
+        // Add(x, 1) was evicted and is evaluated again
+        Assert.assertEquals(3, costModel.cost(node("Add", leaf("x"), leaf("1"))));
+    }
+}
@@ -0,0 +1,77 @@
+package synth.core;
+
+import org.junit.Assert;
+import org.junit.Test;
+import synth.util.Parser;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Set;
+
+import static synth.core.TestNodes.E;
+import static synth.core.TestNodes.buildReducedCFG;
+import static synth.core.TestNodes.leaf;
+
+/**
+ * Tests for the enumerators skipping observationally equivalent nodes.
+ */
+public class EnumeratorTests {
+    private static final int COUNT = 40;
+
+    /**
+     * Examples where x and y are always equal, so that any node is equivalent to the node with x and y swapped
+     */
+    private ExampleSet buildExamples() {
+        return Parser.parseExampleSet(List.of("x=1, y=1 -> 0", "x=2, y=2 -> 0", "x=-3, y=-3 -> 0"));
+    }
+
+    private List<ASTNode> enumerate(Enumerator enumerator, int count) {
+        List<ASTNode> nodes = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            ASTNode node = enumerator.enumerate(new SearchBudget(0, 100000, 0, 0));
+            Assert.assertNotNull(node);
+            nodes.add(node);
+        }
+        return nodes;
+    }
+
+    @Test
+    public void testDistinctExpressions() {
+        BatchInterpreter interpreter = new BatchInterpreter(buildExamples());
+        Enumerator enumerator = new ExpressionEnumerator(buildReducedCFG(E), new LinkedList<>(), interpreter, new SearchMetrics(), SymmetryBreaking.ALL);
+        Set<Signature> signatures = new HashSet<>();
+        for (int i = 0; i < COUNT; i++) {
+            ASTNode node = enumerate(enumerator, 1).get(0);
+            // The signature of the enumerated node is kept for the caller
+            Assert.assertEquals(new Signature(interpreter.evalExpr(node)), enumerator.getSignature());
+            Assert.assertTrue("Equivalent expression " + node, signatures.add(enumerator.getSignature()));
+        }
+        // y is equivalent to x, which is enumerated first
+        Assert.assertFalse(enumerate(new ExpressionEnumerator(buildReducedCFG(E), new LinkedList<>(), interpreter, new SearchMetrics(), SymmetryBreaking.ALL), 3)
+                .contains(leaf("y")));
+    }
+
+    @Test
+    public void testDistinctPredicates() {
+        BatchInterpreter interpreter = new BatchInterpreter(buildExamples());
+        Enumerator enumerator = new PredicateEnumerator(buildReducedCFG(E), new LinkedList<>(), interpreter, new SearchMetrics(), SymmetryBreaking.ALL);
+        Set<List<Boolean>> truths = new HashSet<>();
+        // Lt(x, y) and Lt(y, x) are both false on every example, so only one of them is enumerated
+        for (ASTNode node : enumerate(enumerator, 4)) {
+            List<Boolean> values = new ArrayList<>();
+            for (boolean value : interpreter.evalPred(node)) {
+                values.add(value);
+            }
+            Assert.assertTrue("Equivalent predicate " + node, truths.add(values));
+        }
+    }
+
+    @Test
+    public void testAllExpressionsWithoutInterpreter() {
+        List<ASTNode> nodes = enumerate(new ExpressionEnumerator(buildReducedCFG(E)), 3);
+        Assert.assertTrue(nodes.contains(leaf("y")));
+        Assert.assertNull(new ExpressionEnumerator(buildReducedCFG(E)).getSignature());
+    }
+}
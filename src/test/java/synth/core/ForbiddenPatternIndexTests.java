@@ -0,0 +1,68 @@
+package synth.core;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import static synth.core.TestNodes.B;
+import static synth.core.TestNodes.E;
+import static synth.core.TestNodes.hole;
+import static synth.core.TestNodes.leaf;
+import static synth.core.TestNodes.node;
+
+/**
+ * Tests for the matching of forbidden patterns learned from UNSAT cores.
+ */
+public class ForbiddenPatternIndexTests {
+
+    @Test
+    public void testWildcardMatchesAnySubtree() {
+        ForbiddenPatternIndex index = new ForbiddenPatternIndex();
+        // Multiply(1, Add(E, E)) is unsatisfiable whatever the second operand
+        ASTNode node = node("Multiply", leaf("1"), node("Add", hole(E), hole(E)));
+        Assert.assertTrue(index.add(node("Multiply", leaf("1"), ForbiddenPatternIndex.wildcard()), node));
+
+        Assert.assertTrue(index.matches(node("Multiply", leaf("1"), leaf("x"))));
+        Assert.assertTrue(index.matches(node("Multiply", leaf("1"), node("Ite", hole(B), hole(E), hole(E)))));
+        Assert.assertFalse(index.matches(node("Multiply", leaf("2"), leaf("x"))));
+        Assert.assertFalse(index.matches(node("Add", leaf("1"), leaf("x"))));
+    }
+
+    @Test
+    public void testPatternMustGeneralizeNode() {
+        ForbiddenPatternIndex index = new ForbiddenPatternIndex();
+        // A pattern wildcarding only the holes of the node matches nothing but its descendants
+        ASTNode node = node("Add", leaf("x"), hole(E));
+        Assert.assertFalse(index.add(node("Add", leaf("x"), ForbiddenPatternIndex.wildcard()), node));
+        Assert.assertEquals(0, index.size());
+    }
+
+    @Test
+    public void testPatternsSharingPrefix() {
+        ForbiddenPatternIndex index = new ForbiddenPatternIndex();
+        ASTNode node = node("Add", node("Multiply", leaf("x"), leaf("y")), node("Add", leaf("1"), leaf("2")));
+        ASTNode wildcard = ForbiddenPatternIndex.wildcard();
+        Assert.assertTrue(index.add(node("Add", node("Multiply", leaf("x"), wildcard), wildcard), node));
+        Assert.assertTrue(index.add(node("Add", node("Multiply", wildcard, leaf("y")), leaf("1")), node));
+        Assert.assertTrue(index.add(node("Add", wildcard, node("Add", leaf("1"), wildcard)), node));
+        // An equal pattern is not added twice
+        Assert.assertFalse(index.add(node("Add", node("Multiply", leaf("x"), wildcard), wildcard), node));
+        Assert.assertEquals(3, index.size());
+
+        Assert.assertTrue(index.matches(node("Add", node("Multiply", leaf("x"), leaf("2")), hole(E))));
+        Assert.assertTrue(index.matches(node("Add", node("Multiply", leaf("2"), leaf("y")), leaf("1"))));
+        Assert.assertTrue(index.matches(node("Add", leaf("y"), node("Add", leaf("1"), hole(E)))));
+        Assert.assertFalse(index.matches(node("Add", node("Multiply", leaf("2"), leaf("y")), leaf("2"))));
+        Assert.assertFalse(index.matches(node("Add", node("Multiply", leaf("y"), leaf("x")), hole(E))));
+        Assert.assertFalse(index.matches(node("Add", leaf("y"), node("Add", hole(E), leaf("1")))));
+    }
+
+    @Test
+    public void testCapacity() {
+        ForbiddenPatternIndex index = new ForbiddenPatternIndex(1);
+        ASTNode node = node("Add", leaf("x"), leaf("y"));
+        Assert.assertTrue(index.add(node("Add", leaf("x"), ForbiddenPatternIndex.wildcard()), node));
+        Assert.assertFalse(index.add(node("Add", ForbiddenPatternIndex.wildcard(), leaf("y")), node));
+        Assert.assertTrue(index.matches(node("Add", leaf("x"), leaf("1"))));
+        Assert.assertFalse(index.matches(node("Add", leaf("1"), leaf("y"))));
+    }
+}
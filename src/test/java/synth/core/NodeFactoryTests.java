@@ -0,0 +1,62 @@
+package synth.core;
+
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Test;
+import synth.cfg.Terminal;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
+
+import static synth.core.TestNodes.E;
+import static synth.core.TestNodes.hole;
+import static synth.core.TestNodes.leaf;
+
+/**
+ * Tests for the hash-consing of nodes.
+ */
+public class NodeFactoryTests {
+
+    @Test
+    public void testInternedNodesAreIdentical() {
+        ASTNode first = NodeFactory.create(new Terminal("Add"), List.of(leaf("x"), leaf("1")));
+        ASTNode second = NodeFactory.create(new Terminal("Add"), List.of(leaf("x"), leaf("1")));
+        Assert.assertSame(first, second);
+        Assert.assertSame(first.getChild(0), second.getChild(0));
+        Assert.assertNotSame(first, NodeFactory.create(new Terminal("Add"), List.of(leaf("1"), leaf("x"))));
+    }
+
+    @Test
+    public void testPartialNodesAreNotInterned() {
+        ASTNode first = NodeFactory.create(new Terminal("Add"), List.of(leaf("x"), hole(E)));
+        ASTNode second = NodeFactory.create(new Terminal("Add"), List.of(leaf("x"), hole(E)));
+        Assert.assertEquals(first, second);
+        Assert.assertNotSame(first, second);
+    }
+
+    @Test
+    public void testChildrenAreCopied() {
+        List<ASTNode> children = new ArrayList<>(List.of(leaf("x"), leaf("y")));
+        ASTNode node = NodeFactory.create(new Terminal("Add"), children);
+        int hash = node.hashCode();
+        children.set(1, leaf("z"));
+        Assert.assertEquals(leaf("y"), node.getChild(1));
+        Assert.assertEquals(hash, node.hashCode());
+    }
+
+    @Test
+    public void testUnusedNodesAreReleased() throws InterruptedException {
+        // A constant that no other test creates, so that only this test refers to the interned node
+        WeakReference<ASTNode> ref = new WeakReference<>(NodeFactory.create(new Terminal("Multiply"),
+                List.of(leaf("x"), leaf("987654321"))));
+        // An object only this test refers to, which tells whether System.gc() collects at all
+        WeakReference<Object> canary = new WeakReference<>(new Object());
+        for (int i = 0; i < 50 && (ref.get() != null || canary.get() != null); i++) {
+            System.gc();
+            Thread.sleep(10);
+        }
+        Assume.assumeTrue("System.gc() does not collect, e.g. with -XX:+DisableExplicitGC", canary.get() == null);
+        Assert.assertNull(ref.get());
+    }
+}
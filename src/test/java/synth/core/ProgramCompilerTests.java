@@ -0,0 +1,74 @@
+package synth.core;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static synth.core.TestNodes.leaf;
+import static synth.core.TestNodes.node;
+
+/**
+ * Tests for the bytecode compiler, which should agree with the interpreter on every input.
+ */
+public class ProgramCompilerTests {
+    private static final List<String> VARIABLES = List.of("x", "y", "z");
+
+    private void assertSameAsInterpreter(Program program) {
+        CompiledProgram compiled = ProgramCompiler.compile(program, VARIABLES);
+        for (int x = -3; x <= 3; x++) {
+            for (int y = -3; y <= 3; y++) {
+                for (int z = -3; z <= 3; z++) {
+                    int expected = Interpreter.evaluate(program, Map.of("x", x, "y", y, "z", z));
+                    Assert.assertEquals(expected, compiled.evaluate(new int[]{x, y, z}));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testCompileArithmetic() {
+        // Add(Multiply(x, y), Multiply(z, 3))
+        assertSameAsInterpreter(new Program(
+                node("Add", node("Multiply", leaf("x"), leaf("y")), node("Multiply", leaf("z"), leaf("3")))));
+    }
+
+    @Test
+    public void testCompileConditional() {
+        // Ite(Or(And(Lt(x, y), Not(Eq(y, z))), Lt(z, 1)), Ite(Eq(x, 2), y, z), Add(x, 1))
+        assertSameAsInterpreter(new Program(
+                node("Ite",
+                        node("Or",
+                                node("And", node("Lt", leaf("x"), leaf("y")), node("Not", node("Eq", leaf("y"), leaf("z")))),
+                                node("Lt", leaf("z"), leaf("1"))),
+                        node("Ite", node("Eq", leaf("x"), leaf("2")), leaf("y"), leaf("z")),
+                        node("Add", leaf("x"), leaf("1")))));
+    }
+
+    @Test
+    public void testValidation() {
+        // Add(x, y) validated by the compiled program, stopping at the first failing example
+        List<Example> examples = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            examples.add(new Example(Map.of("x", i, "y", -2 * i, "z", 0), -i));
+        }
+        BatchInterpreter interpreter = BatchInterpreter.of(examples);
+        int[] outputs = ExampleSet.of(examples).getOutputs();
+        Assert.assertTrue(ProgramCompiler.compile(new Program(node("Add", leaf("x"), leaf("y"))), VARIABLES)
+                .isValid(interpreter, outputs));
+        Assert.assertFalse(ProgramCompiler.compile(new Program(node("Add", leaf("x"), leaf("z"))), VARIABLES)
+                .isValid(interpreter, outputs));
+    }
+
+    @Test(expected = RuntimeException.class)
+    public void testTooManyVariables() {
+        // The parameters of a method fit 255 slots at most
+        List<String> variables = new ArrayList<>();
+        for (int i = 0; i < 256; i++) {
+            variables.add("v" + i);
+        }
+        ProgramCompiler.compile(new Program(leaf("x")), variables);
+    }
+}
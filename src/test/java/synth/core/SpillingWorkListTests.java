@@ -0,0 +1,63 @@
+package synth.core;
+
+import org.junit.Assert;
+import org.junit.Test;
+import synth.cfg.Terminal;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Tests for the work list spilling to temporary files.
+ */
+public class SpillingWorkListTests {
+
+    /**
+     * @param i an index
+     * @return a distinct complete node of one node
+     */
+    private ASTNode leaf(int i) {
+        return NodeFactory.create(new Terminal(String.valueOf(i)), Collections.emptyList());
+    }
+
+    @Test
+    public void testFifoOrder() {
+        // A budget of 10 leaves
+        try (SpillingWorkList workList = new SpillingWorkList(10 * 64)) {
+            List<ASTNode> polled = new ArrayList<>();
+            for (int i = 0; i < 100; i++) {
+                workList.offer(leaf(i));
+                if (i % 3 == 0) {
+                    polled.add(workList.poll());
+                }
+            }
+            Assert.assertTrue(workList.getSegmentCount() > 0);
+            while (!workList.isEmpty()) {
+                polled.add(workList.poll());
+            }
+            for (int i = 0; i < 100; i++) {
+                Assert.assertEquals(leaf(i), polled.get(i));
+            }
+            Assert.assertNull(workList.poll());
+        }
+    }
+
+    @Test
+    public void testLoadedSegmentDoesNotForceSpills() {
+        try (SpillingWorkList workList = new SpillingWorkList(10 * 64)) {
+            for (int i = 0; i < 50; i++) {
+                workList.offer(leaf(i));
+            }
+            int segments = workList.getSegmentCount();
+            // Polling loads the oldest segment, a full budget, into the head
+            workList.poll();
+            Assert.assertEquals(segments - 1, workList.getSegmentCount());
+            // The tail alone spills once it exceeds the budget, not on every offer
+            for (int i = 50; i < 60; i++) {
+                workList.offer(leaf(i));
+            }
+            Assert.assertTrue(workList.getSegmentCount() <= segments);
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package synth.core;
+
+import org.junit.Assert;
+import org.junit.Test;
+import synth.cfg.CFG;
+import synth.cfg.NonTerminal;
+import synth.util.Parser;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static synth.core.TestNodes.B;
+import static synth.core.TestNodes.E;
+import static synth.core.TestNodes.buildReducedCFG;
+import static synth.core.TestNodes.hole;
+import static synth.core.TestNodes.leaf;
+import static synth.core.TestNodes.node;
+
+/**
+ * Tests that the symmetry-breaking rules keep a smallest program of every equivalence class.
+ */
+public class SymmetryBreakingTests {
+    private static final int MAX_SIZE = 6;
+    private static final List<String> EXAMPLES = List.of("x=0, y=0 -> 0", "x=1, y=2 -> 0", "x=2, y=1 -> 0",
+            "x=-3, y=5 -> 0", "x=4, y=4 -> 0", "x=7, y=-2 -> 0");
+
+    /**
+     * @return the size of the smallest complete program generated for each output or truth vector over the examples
+     */
+    private Map<String, Integer> smallestByVector(CFG cfg, SymmetryBreaking symmetryBreaking) {
+        BatchInterpreter interpreter = BatchInterpreter.of(Parser.parseAllExamples(EXAMPLES));
+        Map<String, Integer> smallest = new HashMap<>();
+        Deque<ASTNode> stack = new ArrayDeque<>();
+        stack.push(hole(cfg.getStartSymbol()));
+        while (!stack.isEmpty()) {
+            ASTNode node = stack.pop();
+            // Each hole is completed by at least one node, so the size is a lower bound of any completion
+            if (node.size() > MAX_SIZE) {
+                continue;
+            }
+            if (node.isComplete()) {
+                String vector = cfg.getStartSymbol() == E ? Arrays.toString(interpreter.evalExpr(node))
+                        : Arrays.toString(interpreter.evalPred(node));
+                smallest.merge(vector, node.size(), Math::min);
+            } else {
+                Utils.expand(node, cfg, symmetryBreaking).forEach(stack::push);
+            }
+        }
+        return smallest;
+    }
+
+    private void assertKeepsSmallest(NonTerminal startSymbol) {
+        CFG cfg = buildReducedCFG(startSymbol);
+        Map<String, Integer> expected = smallestByVector(cfg, SymmetryBreaking.NONE);
+        List<SymmetryBreaking> strategies = new ArrayList<>();
+        for (SymmetryBreaking.Rule rule : SymmetryBreaking.Rule.values()) {
+            strategies.add(new SymmetryBreaking(EnumSet.of(rule)));
+        }
+        strategies.add(SymmetryBreaking.ALL);
+        for (SymmetryBreaking symmetryBreaking : strategies) {
+            Map<String, Integer> expectedVectors = new HashMap<>(expected);
+            Map<String, Integer> actualVectors = smallestByVector(cfg, symmetryBreaking);
+            if (startSymbol == B && symmetryBreaking.isEnabled(SymmetryBreaking.Rule.CONSTANT_PREDICATES)) {
+                // Constant predicates are dropped on purpose, as Ite(B, E1, E2) with a constant B is a smaller branch
+                boolean[] truths = new boolean[EXAMPLES.size()];
+                for (boolean truth : new boolean[] { false, true }) {
+                    Arrays.fill(truths, truth);
+                    expectedVectors.remove(Arrays.toString(truths));
+                    actualVectors.remove(Arrays.toString(truths));
+                }
+            }
+            // Every vector keeps a program of at most the size of the smallest unrestricted one
+            Assert.assertEquals(expectedVectors, actualVectors);
+        }
+    }
+
+    @Test
+    public void testExpressionsKeepSmallestRepresentative() {
+        assertKeepsSmallest(E);
+    }
+
+    @Test
+    public void testPredicatesKeepSmallestRepresentative() {
+        assertKeepsSmallest(B);
+    }
+
+    @Test
+    public void testCommutativityKeepsOneOrder() {
+        SymmetryBreaking symmetryBreaking = new SymmetryBreaking(EnumSet.of(SymmetryBreaking.Rule.COMMUTATIVITY));
+        CFG cfg = buildReducedCFG(E);
+        ASTNode lt = node("Lt", leaf("x"), leaf("y"));
+        ASTNode eq = node("Eq", leaf("x"), leaf("1"));
+        Map<String, List<ASTNode>> operands = Map.of("Add", List.of(leaf("x"), leaf("y")),
+                "Multiply", List.of(leaf("2"), leaf("y")), "Eq", List.of(leaf("x"), leaf("y")),
+                "And", List.of(lt, eq), "Or", List.of(lt, eq));
+        for (Map.Entry<String, List<ASTNode>> entry : operands.entrySet()) {
+            ASTNode a = entry.getValue().get(0);
+            ASTNode b = entry.getValue().get(1);
+            boolean ordered = symmetryBreaking.isCanonical(node(entry.getKey(), a, b), cfg);
+            boolean reversed = symmetryBreaking.isCanonical(node(entry.getKey(), b, a), cfg);
+            Assert.assertTrue(entry.getKey(), ordered ^ reversed);
+        }
+        // Lt is not commutative
+        Assert.assertTrue(symmetryBreaking.isCanonical(node("Lt", leaf("y"), leaf("x")), cfg));
+        // A hole may still be completed by an operand ordered after the other one
+        Assert.assertTrue(symmetryBreaking.isCanonical(node("Add", leaf("y"), hole(E)), cfg));
+    }
+
+    @Test
+    public void testNegationAndIdempotence() {
+        CFG cfg = buildReducedCFG(E);
+        SymmetryBreaking negation = new SymmetryBreaking(EnumSet.of(SymmetryBreaking.Rule.DOUBLE_NEGATION));
+        ASTNode lt = node("Lt", leaf("x"), leaf("y"));
+        Assert.assertFalse(negation.isCanonical(node("Not", node("Not", hole(B))), cfg));
+        Assert.assertTrue(negation.isCanonical(node("Not", lt), cfg));
+        Assert.assertFalse(negation.isCanonical(node("Ite", node("Not", lt), leaf("x"), leaf("y")), cfg));
+
+        SymmetryBreaking idempotence = new SymmetryBreaking(EnumSet.of(SymmetryBreaking.Rule.IDEMPOTENCE));
+        Assert.assertFalse(idempotence.isCanonical(node("And", lt, lt), cfg));
+        Assert.assertFalse(idempotence.isCanonical(node("Or", lt, lt), cfg));
+        Assert.assertFalse(idempotence.isCanonical(node("Ite", hole(B), leaf("x"), leaf("x")), cfg));
+        Assert.assertTrue(idempotence.isCanonical(node("Ite", hole(B), leaf("x"), hole(E)), cfg));
+    }
+
+    @Test
+    public void testParse() {
+        Assert.assertSame(SymmetryBreaking.ALL, SymmetryBreaking.parse(null));
+        Assert.assertSame(SymmetryBreaking.NONE, SymmetryBreaking.parse("none"));
+        SymmetryBreaking symmetryBreaking = SymmetryBreaking.parse("commutativity, double-negation");
+        for (SymmetryBreaking.Rule rule : SymmetryBreaking.Rule.values()) {
+            Assert.assertEquals(rule == SymmetryBreaking.Rule.COMMUTATIVITY || rule == SymmetryBreaking.Rule.DOUBLE_NEGATION,
+                    symmetryBreaking.isEnabled(rule));
+        }
+    }
+
+    @Test(expected = RuntimeException.class)
+    public void testParseUnknownRule() {
+        SymmetryBreaking.parse("commutativity,unknown");
+    }
+}
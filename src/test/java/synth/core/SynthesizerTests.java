@@ -0,0 +1,288 @@
+package synth.core;
+
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Test;
+import synth.cfg.CFG;
+import synth.util.Parser;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import javax.management.ObjectName;
+
+import static synth.core.TestNodes.buildCFG;
+
+/**
+ * Tests for synthesizers on small benchmarks.
+ */
+public class SynthesizerTests {
+
+    private List<Example> buildExamples(String... lines) {
+        return Parser.parseAllExamples(List.of(lines));
+    }
+
+    @Test
+    public void testBottomUpArithmetic() {
+        // Add(Add(x, y), z)
+        List<Example> examples = buildExamples("x=1, y=2, z=3 -> 6", "x=3, y=2, z=2 -> 7", "x=2, y=3, z=4 -> 9");
+        Program program = new BottomUpEnumSynthesizer().synthesize(buildCFG(), examples);
+        Assert.assertNotNull(program);
+        Assert.assertTrue(Utils.isValid(program, examples));
+    }
+
+    @Test
+    public void testBottomUpConditional() {
+        // max(x, y)
+        List<Example> examples = buildExamples("x=1, y=2, z=0 -> 2", "x=5, y=3, z=0 -> 5", "x=4, y=9, z=0 -> 9");
+        Program program = new BottomUpEnumSynthesizer().synthesize(buildCFG(), examples);
+        Assert.assertNotNull(program);
+        Assert.assertTrue(Utils.isValid(program, examples));
+    }
+
+    @Test
+    public void testParallelTopDownMatchesSequential() {
+        List<Example> examples = buildExamples("x=1, y=2, z=3 -> 5", "x=3, y=2, z=2 -> 8", "x=2, y=3, z=4 -> 10");
+        Program sequential = new TopDownEnumSynthesizer().synthesize(buildCFG(), examples);
+        Program parallel = new ParallelTopDownEnumSynthesizer(4).synthesize(buildCFG(), examples);
+        Assert.assertNotNull(parallel);
+        Assert.assertEquals(sequential.getRoot(), parallel.getRoot());
+    }
+
+    @Test
+    public void testSpillingWorkListMatchesSequential() {
+        List<Example> examples = buildExamples("x=1, y=2, z=3 -> 5", "x=3, y=2, z=2 -> 8", "x=2, y=3, z=4 -> 10");
+        Program sequential = new TopDownEnumSynthesizer().synthesize(buildCFG(), examples);
+        // A budget of a few nodes forces the work list to spill every few expansions
+        Program spilled = new TopDownEnumSynthesizer((cfg, exampleSet) -> new SpillingWorkList(1024))
+                .synthesize(buildCFG(), examples);
+        Assert.assertNotNull(spilled);
+        Assert.assertEquals(sequential.getRoot(), spilled.getRoot());
+    }
+
+    @Test
+    public void testIterativeDeepeningFindsSmallestProgram() {
+        List<Example> examples = buildExamples("x=1, y=2, z=3 -> 5", "x=3, y=2, z=2 -> 8", "x=2, y=3, z=4 -> 10");
+        Program sequential = new TopDownEnumSynthesizer().synthesize(buildCFG(), examples);
+        Program program = new IterativeDeepeningSynthesizer().synthesize(buildCFG(), examples);
+        Assert.assertNotNull(program);
+        Assert.assertTrue(Utils.isValid(program, examples));
+        Assert.assertEquals(sequential.getRoot().size(), program.getRoot().size());
+    }
+
+    @Test
+    public void testDecisionTreeUnifier() {
+        // max(x, y) + z needs a conditional
+        List<Example> examples = buildExamples("x=1, y=2, z=1 -> 3", "x=5, y=3, z=0 -> 5", "x=4, y=9, z=2 -> 11",
+                "x=0, y=0, z=3 -> 3", "x=7, y=1, z=1 -> 8");
+        Program program = new DivideAndConquerSynthesizer(
+                (cfg, exampleSet) -> new LinkedList<>(), new DecisionTreeUnifier()).synthesize(buildCFG(), examples);
+        Assert.assertNotNull(program);
+        Assert.assertTrue(Utils.isValid(program, examples));
+    }
+
+    @Test
+    public void testPipelinedDivideAndConquer() {
+        List<Example> examples = buildExamples("x=1, y=2, z=1 -> 3", "x=5, y=3, z=0 -> 5", "x=4, y=9, z=2 -> 11",
+                "x=0, y=0, z=3 -> 3", "x=7, y=1, z=1 -> 8");
+        Program program = new PipelinedDivideAndConquerSynthesizer().synthesize(buildCFG(), examples);
+        Assert.assertNotNull(program);
+        Assert.assertTrue(Utils.isValid(program, examples));
+    }
+
+    @Test
+    public void testSearchMetrics() throws Exception {
+        List<Example> examples = buildExamples("x=1, y=2, z=0 -> 2", "x=5, y=3, z=0 -> 5", "x=4, y=9, z=0 -> 9");
+        DivideAndConquerSynthesizer synthesizer = new DivideAndConquerSynthesizer();
+        ObjectName name = synthesizer.getMetrics().register("test");
+        try {
+            Assert.assertNotNull(synthesizer.synthesize(buildCFG(), examples));
+            SearchMetrics metrics = synthesizer.getMetrics();
+            Assert.assertTrue(metrics.getNodesExpanded() > 0);
+            Assert.assertTrue(metrics.getDistinctExpressions() > 0 && metrics.getDistinctPredicates() > 0);
+            Assert.assertTrue(metrics.getWorkListPeak() > 0);
+            // The counters can be read live through the platform MBean server
+            Assert.assertEquals(metrics.getNodesExplored(),
+                    ManagementFactory.getPlatformMBeanServer().getAttribute(name, "NodesExplored"));
+        } finally {
+            SearchMetrics.unregister(name);
+        }
+        Assert.assertFalse(ManagementFactory.getPlatformMBeanServer().isRegistered(name));
+    }
+
+    @Test
+    public void testPortfolioReturnsValidProgram() {
+        List<Example> examples = buildExamples("x=1, y=2, z=1 -> 3", "x=5, y=3, z=0 -> 5", "x=4, y=9, z=2 -> 11",
+                "x=0, y=0, z=3 -> 3", "x=7, y=1, z=1 -> 8");
+        Program program = new PortfolioSynthesizer(List.of(new TopDownEnumSynthesizer(), new DivideAndConquerSynthesizer()))
+                .synthesize(buildCFG(), examples);
+        Assert.assertNotNull(program);
+        Assert.assertTrue(Utils.isValid(program, examples));
+    }
+
+    @Test
+    public void testPortfolioWaitsForCancelledStrategies() throws Exception {
+        List<Example> examples = buildExamples("x=1, y=2, z=1 -> 3", "x=5, y=3, z=0 -> 5");
+        // A strategy that searches until it is interrupted, spending 20ms on each node without noticing the
+        // interruption, like a native Z3 check, and counting the node once done
+        ISynthesizer slow = new ISynthesizer() {
+            private final SearchMetrics metrics = new SearchMetrics();
+
+            @Override
+            public Program synthesize(CFG cfg, List<Example> examples, SearchBudget budget) {
+                while (true) {
+                    budget.check();
+                    long end = System.nanoTime() + 20_000_000;
+                    while (System.nanoTime() - end < 0) {
+                        Thread.onSpinWait();
+                    }
+                    metrics.incrementNodesExplored();
+                }
+            }
+
+            @Override
+            public SearchMetrics getMetrics() {
+                return metrics;
+            }
+        };
+        PortfolioSynthesizer portfolio = new PortfolioSynthesizer(List.of(new TopDownEnumSynthesizer(), slow));
+        Assert.assertNotNull(portfolio.synthesize(buildCFG(), examples));
+        // The counters of the cancelled strategy were moved once it stopped, so none is left behind
+        Thread.sleep(50);
+        Assert.assertEquals(0, slow.getMetrics().getNodesExplored());
+        Assert.assertTrue(portfolio.getMetrics().getNodesExplored() > 0);
+    }
+
+    @Test
+    public void testPortfolioGivesEachStrategyItsOwnBudget() {
+        List<Example> examples = buildExamples("x=1, y=2, z=1 -> 3", "x=5, y=3, z=0 -> 8");
+        Program expected = new TopDownEnumSynthesizer().synthesize(buildCFG(), examples);
+        // Two strategies exploring 80 nodes each, the second one only once the first one is done
+        CountDownLatch done = new CountDownLatch(1);
+        ISynthesizer first = (cfg, exampleList, budget) -> {
+            for (int i = 0; i < 80; i++) {
+                budget.check();
+            }
+            done.countDown();
+            return null;
+        };
+        ISynthesizer second = (cfg, exampleList, budget) -> {
+            try {
+                done.await();
+            } catch (InterruptedException e) {
+                throw new BudgetExceededException(BudgetExceededException.Reason.INTERRUPTED, "Interrupted");
+            }
+            for (int i = 0; i < 80; i++) {
+                budget.check();
+            }
+            return expected;
+        };
+        SearchBudget budget = new SearchBudget(0, 100, 0, 0);
+        Program program = new PortfolioSynthesizer(List.of(first, second)).synthesize(buildCFG(), examples, budget);
+        // A shared budget would have stopped the second strategy after 20 nodes
+        Assert.assertSame(expected, program);
+        Assert.assertEquals(0, budget.getNodes());
+    }
+
+    @Test
+    public void testInterruptStopsSearch() throws Exception {
+        // No program of the grammar computes x * x * x + 7 on these examples within the time of the test
+        List<Example> examples = buildExamples("x=2, y=0, z=0 -> 15", "x=3, y=0, z=0 -> 34", "x=5, y=0, z=0 -> 132",
+                "x=-4, y=1, z=1 -> -57");
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        Thread thread = new Thread(() -> {
+            try {
+                new TopDownEnumSynthesizer().synthesize(buildCFG(), examples);
+            } catch (Throwable t) {
+                failure.set(t);
+            }
+        });
+        thread.start();
+        Thread.sleep(200);
+        thread.interrupt();
+        thread.join(2000);
+        Assert.assertFalse(thread.isAlive());
+        Assert.assertTrue(failure.get() instanceof CancellationException);
+    }
+
+    @Test
+    public void testSearchBudget() {
+        // No program of the grammar computes x * x * x + 7 on these examples within the size or nodes of the budgets
+        List<Example> examples = buildExamples("x=2, y=0, z=0 -> 15", "x=3, y=0, z=0 -> 34", "x=5, y=0, z=0 -> 132",
+                "x=-4, y=1, z=1 -> -57");
+        try {
+            new TopDownEnumSynthesizer().synthesize(buildCFG(), examples, new SearchBudget(0, 1000, 0, 0));
+            Assert.fail("Expected the node budget to be exceeded");
+        } catch (BudgetExceededException e) {
+            Assert.assertEquals(BudgetExceededException.Reason.NODES, e.getReason());
+        }
+        try {
+            new TopDownEnumSynthesizer().synthesize(buildCFG(), examples, new SearchBudget(0, 0, 5, 0));
+            Assert.fail("Expected the size budget to be exceeded");
+        } catch (BudgetExceededException e) {
+            Assert.assertEquals(BudgetExceededException.Reason.SIZE, e.getReason());
+        }
+    }
+
+    @Test
+    public void testMemoryBudget() {
+        AtomicLong used = new AtomicLong(-1);
+        SearchBudget budget = new SearchBudget(0, 0, 0, 1000, used::get);
+        // The ceiling is not enforced before the first collection
+        budget.poll();
+        used.set(1000);
+        budget.poll();
+        used.set(1001);
+        try {
+            budget.poll();
+            Assert.fail("Expected the memory budget to be exceeded");
+        } catch (BudgetExceededException e) {
+            Assert.assertEquals(BudgetExceededException.Reason.MEMORY, e.getReason());
+        }
+        // A copy reads the same heap
+        try {
+            budget.copy().poll();
+            Assert.fail("Expected the memory budget to be exceeded");
+        } catch (BudgetExceededException e) {
+            Assert.assertEquals(BudgetExceededException.Reason.MEMORY, e.getReason());
+        }
+    }
+
+    @Test
+    public void testMemoryBudgetAfterCollection() throws Exception {
+        SearchBudget tight = new SearchBudget(0, 0, 0, 1);
+        SearchBudget loose = new SearchBudget(0, 0, 0, Long.MAX_VALUE / 2);
+        long collections = collectionCount();
+        // The used heap is read from the notification of a collection, which is delivered asynchronously
+        for (int i = 0; i < 100; i++) {
+            System.gc();
+            Thread.sleep(50);
+            loose.poll();
+            try {
+                tight.poll();
+            } catch (BudgetExceededException e) {
+                Assert.assertEquals(BudgetExceededException.Reason.MEMORY, e.getReason());
+                return;
+            }
+        }
+        Assume.assumeTrue("System.gc() does not collect, e.g. with -XX:+DisableExplicitGC", collectionCount() > collections);
+        Assert.fail("Expected the memory budget to be exceeded");
+    }
+
+    /**
+     * @return the number of collections run by all collectors so far
+     */
+    private long collectionCount() {
+        long count = 0;
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            count += Math.max(0, collector.getCollectionCount());
+        }
+        return count;
+    }
+}
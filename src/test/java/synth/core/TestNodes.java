@@ -0,0 +1,86 @@
+package synth.core;
+
+import synth.Main;
+import synth.cfg.CFG;
+import synth.cfg.NonTerminal;
+import synth.cfg.Production;
+import synth.cfg.Terminal;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Fixtures shared by the tests: nodes built by name through the node factory, and the grammars of the searches.
+ */
+final class TestNodes {
+    static final NonTerminal E = new NonTerminal("E");
+    static final NonTerminal B = new NonTerminal("B");
+
+    private TestNodes() {
+    }
+
+    /**
+     * @param name an integer constant or one of the variables x, y and z, resolved by name
+     * @return the interned leaf
+     */
+    static ASTNode leaf(String name) {
+        return NodeFactory.create(new Terminal(name), Collections.emptyList());
+    }
+
+    /**
+     * @param name     the operator
+     * @param children the operands
+     * @return the node, interned if it is complete
+     */
+    static ASTNode node(String name, ASTNode... children) {
+        return NodeFactory.create(new Terminal(name), List.of(children));
+    }
+
+    /**
+     * @param symbol the non-terminal of the hole
+     * @return a partial node made of the hole only
+     */
+    static ASTNode hole(NonTerminal symbol) {
+        return NodeFactory.create(symbol, Collections.emptyList());
+    }
+
+    /**
+     * @return the grammar of Main over the variables x, y and z
+     */
+    static CFG buildCFG() {
+        return Main.buildCFG(new SymbolTable(List.of("x", "y", "z")));
+    }
+
+    /**
+     * Build a grammar small enough to enumerate exhaustively, whose variables are resolved by name like the leaves:
+     * E ::= Ite(B, E, E) | Add(E, E) | Multiply(E, E) | x | y | 1 | 2
+     * B ::= Lt(E, E) | Eq(E, E) | And(B, B) | Or(B, B) | Not(B)
+     *
+     * @param startSymbol E or B
+     * @return the CFG
+     */
+    static CFG buildReducedCFG(NonTerminal startSymbol) {
+        Map<NonTerminal, List<Production>> symbolToProductions = new HashMap<>();
+        List<Production> exprProds = new ArrayList<>();
+        exprProds.add(new Production(E, new Terminal("Ite"), List.of(B, E, E)));
+        exprProds.add(new Production(E, new Terminal("Add"), List.of(E, E)));
+        exprProds.add(new Production(E, new Terminal("Multiply"), List.of(E, E)));
+        for (String leaf : List.of("x", "y", "1", "2")) {
+            exprProds.add(new Production(E, new Terminal(leaf), Collections.emptyList()));
+        }
+        symbolToProductions.put(E, exprProds);
+        List<Production> predProds = new ArrayList<>();
+        for (String operator : List.of("Lt", "Eq")) {
+            predProds.add(new Production(B, new Terminal(operator), List.of(E, E)));
+        }
+        for (String operator : List.of("And", "Or")) {
+            predProds.add(new Production(B, new Terminal(operator), List.of(B, B)));
+        }
+        predProds.add(new Production(B, new Terminal("Not"), List.of(B)));
+        symbolToProductions.put(B, predProds);
+        return new CFG(startSymbol, symbolToProductions);
+    }
+}
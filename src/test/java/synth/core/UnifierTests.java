@@ -0,0 +1,107 @@
+package synth.core;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.BitSet;
+import java.util.List;
+
+import static synth.core.TestNodes.leaf;
+import static synth.core.TestNodes.node;
+
+/**
+ * Tests for the coverage index and the unifiers of divide-and-conquer.
+ */
+public class UnifierTests {
+
+    private BitSet mask(int... examples) {
+        BitSet mask = new BitSet();
+        for (int example : examples) {
+            mask.set(example);
+        }
+        return mask;
+    }
+
+    @Test
+    public void testCoverageIndex() {
+        CoverageIndex index = new CoverageIndex();
+        Assert.assertTrue(index.add(leaf("x"), mask(0, 1)));
+        // A node satisfying no example, or the same examples as another node, is not added
+        Assert.assertFalse(index.add(leaf("1"), mask()));
+        Assert.assertFalse(index.add(leaf("y"), mask(0, 1)));
+        Assert.assertFalse(index.covers(3));
+        Assert.assertTrue(index.add(leaf("z"), mask(1, 2)));
+        Assert.assertTrue(index.covers(3));
+        Assert.assertEquals(leaf("x"), index.getNode(mask(0, 1)));
+        Assert.assertEquals(List.of(leaf("x"), leaf("z")), List.copyOf(index.nodes()));
+    }
+
+    @Test
+    public void testSingleExpression() {
+        CoverageIndex exprIndex = new CoverageIndex();
+        CoverageIndex predIndex = new CoverageIndex();
+        exprIndex.add(leaf("x"), mask(0, 1, 2));
+        predIndex.add(node("Lt", leaf("x"), leaf("y")), mask(0));
+        // No predicate is needed if an expression satisfies all examples
+        Assert.assertEquals(leaf("x"), new GreedyUnifier().unify(exprIndex, predIndex, mask(0, 1, 2)));
+    }
+
+    @Test
+    public void testMinimalCover() {
+        CoverageIndex exprIndex = new CoverageIndex();
+        CoverageIndex predIndex = new CoverageIndex();
+        exprIndex.add(leaf("1"), mask(0));
+        exprIndex.add(leaf("x"), mask(0, 1));
+        exprIndex.add(leaf("y"), mask(2));
+        ASTNode pred = node("Lt", leaf("y"), leaf("x"));
+        predIndex.add(node("Eq", leaf("x"), leaf("1")), mask(1, 2));
+        predIndex.add(pred, mask(0, 1));
+        // The examples are covered by two expressions and one predicate, 1 being useless without a predicate of { 0 }
+        ASTNode program = new GreedyUnifier().unify(exprIndex, predIndex, mask(0, 1, 2));
+        Assert.assertEquals(node("Ite", pred, leaf("x"), leaf("y")), program);
+    }
+
+    @Test
+    public void testNoPredicate() {
+        CoverageIndex exprIndex = new CoverageIndex();
+        CoverageIndex predIndex = new CoverageIndex();
+        exprIndex.add(leaf("x"), mask(0, 1));
+        exprIndex.add(leaf("y"), mask(2));
+        predIndex.add(node("Lt", leaf("y"), leaf("x")), mask(0));
+        Assert.assertNull(new GreedyUnifier().unify(exprIndex, predIndex, mask(0, 1, 2)));
+    }
+
+    @Test
+    public void testDecisionTreeBestSplit() {
+        CoverageIndex exprIndex = new CoverageIndex();
+        CoverageIndex predIndex = new CoverageIndex();
+        exprIndex.add(leaf("x"), mask(0, 1));
+        exprIndex.add(leaf("y"), mask(2, 3));
+        // Eq(x, 1) splits the examples too, but leaves both labels on one side
+        predIndex.add(node("Eq", leaf("x"), leaf("1")), mask(0, 2));
+        ASTNode pred = node("Lt", leaf("y"), leaf("x"));
+        predIndex.add(pred, mask(0, 1));
+        ASTNode program = new DecisionTreeUnifier().unify(exprIndex, predIndex, mask(0, 1, 2, 3));
+        Assert.assertEquals(node("Ite", pred, leaf("x"), leaf("y")), program);
+    }
+
+    @Test(timeout = 10000)
+    public void testDecisionTreeFailsFast() {
+        CoverageIndex exprIndex = new CoverageIndex();
+        CoverageIndex predIndex = new CoverageIndex();
+        int size = 32;
+        // Examples 0 and 1 need different expressions, but no predicate tells them apart
+        exprIndex.add(leaf("x"), mask(0));
+        BitSet rest = new BitSet();
+        rest.set(1, size);
+        exprIndex.add(leaf("y"), rest);
+        for (int i = 2; i < size; i++) {
+            BitSet mask = new BitSet();
+            mask.set(2, i + 1);
+            predIndex.add(node("Lt", leaf("x"), leaf(Integer.toString(i))), mask);
+        }
+        BitSet examples = new BitSet();
+        examples.set(0, size);
+        Assert.assertNull(new DecisionTreeUnifier().unify(exprIndex, predIndex, examples));
+    }
+}
@@ -0,0 +1,142 @@
+package synth.core;
+
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+import synth.cfg.CFG;
+import synth.util.Parser;
+
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static synth.core.TestNodes.B;
+import static synth.core.TestNodes.E;
+import static synth.core.TestNodes.buildReducedCFG;
+import static synth.core.TestNodes.hole;
+import static synth.core.TestNodes.leaf;
+import static synth.core.TestNodes.node;
+
+/**
+ * Tests for the Z3 feasibility checker, which are skipped if the Z3 library cannot be loaded.
+ */
+public class Z3FeasibilityCheckerTests {
+
+    @Before
+    public void setUp() {
+        try {
+            new com.microsoft.z3.Context().close();
+        } catch (LinkageError e) {
+            Assume.assumeNoException("The Z3 library is not available", e);
+        }
+    }
+
+    private List<Example> buildExamples() {
+        return Parser.parseAllExamples(List.of("x=1, y=2 -> 4", "x=3, y=-1 -> 5", "x=0, y=0 -> 1",
+                "x=-2, y=4 -> 9", "x=5, y=5 -> 0", "x=2, y=-3 -> 7"));
+    }
+
+    /**
+     * @return the first partial nodes of a breadth-first search
+     */
+    private List<ASTNode> partialNodes(int count) {
+        CFG cfg = buildReducedCFG(E);
+        List<ASTNode> nodes = new ArrayList<>();
+        Queue<ASTNode> workList = new LinkedList<>();
+        workList.add(hole(E));
+        while (nodes.size() < count && !workList.isEmpty()) {
+            ASTNode node = workList.remove();
+            if (!node.isComplete()) {
+                nodes.add(node);
+                workList.addAll(Utils.expand(node, cfg, SymmetryBreaking.ALL));
+            }
+        }
+        return nodes;
+    }
+
+    private List<Boolean> check(List<ASTNode> nodes, int parallelism) {
+        List<Boolean> results = new ArrayList<>();
+        try (Z3FeasibilityChecker checker = new Z3FeasibilityChecker(buildExamples(), parallelism, null,
+                SearchBudget.unlimited())) {
+            for (ASTNode node : nodes) {
+                results.add(checker.isSatisfiable(node));
+            }
+        }
+        return results;
+    }
+
+    @Test
+    public void testWorkersAgreeWithSingleContext() {
+        List<ASTNode> nodes = partialNodes(300);
+        List<Boolean> expected = check(nodes, 1);
+        Assert.assertTrue(expected.contains(false));
+        Assert.assertTrue(expected.contains(true));
+        // The interrupted checks of a node never leak into the checks of later nodes
+        for (int parallelism = 2; parallelism <= 4; parallelism++) {
+            Assert.assertEquals(expected, check(nodes, parallelism));
+        }
+    }
+
+    @Test
+    public void testLearnsPatternFromUnsatCore() {
+        ForbiddenPatternIndex patterns = new ForbiddenPatternIndex();
+        // Multiply(x, E) is 0 when x is 0, whatever the hole, so the second operand is not in the core
+        List<Example> examples = Parser.parseAllExamples(List.of("x=0, y=1 -> 5"));
+        ASTNode node = node("Multiply", leaf("x"), node("Add", leaf("y"), hole(E)));
+        ASTNode later = node("Multiply", leaf("x"), node("Ite", hole(B), hole(E), hole(E)));
+        try (Z3FeasibilityChecker checker = new Z3FeasibilityChecker(examples, 1, patterns, SearchBudget.unlimited())) {
+            Assert.assertFalse(patterns.matches(later));
+            Assert.assertFalse(checker.isSatisfiable(node));
+            Assert.assertEquals(1, patterns.size());
+            Assert.assertTrue(patterns.matches(later));
+            Assert.assertFalse(checker.isSatisfiable(later));
+        }
+    }
+
+    @Test
+    public void testInterruptedCheckStopsSearch() {
+        List<ASTNode> nodes = partialNodes(10);
+        Z3FeasibilityChecker checker = new Z3FeasibilityChecker(buildExamples(), 2, null, SearchBudget.unlimited());
+        Thread.currentThread().interrupt();
+        try {
+            checker.isSatisfiable(nodes.get(nodes.size() - 1));
+            Assert.fail("Expected the check to be interrupted");
+        } catch (BudgetExceededException e) {
+            // An interrupted check is reported like any cancelled search, not as a satisfiable node
+            Assert.assertEquals(BudgetExceededException.Reason.INTERRUPTED, e.getReason());
+        } finally {
+            // The contexts are closed once the pool is done, and the interruption is kept for the caller
+            checker.close();
+            Assert.assertTrue(Thread.interrupted());
+        }
+    }
+
+    @Test(timeout = 30000)
+    public void testCancelStopsConstraintBasedSearch() throws Exception {
+        // No program of the grammar computes x * x * x + 7 on these examples within the time of the test
+        List<Example> examples = Parser.parseAllExamples(List.of("x=2, y=0 -> 15", "x=3, y=0 -> 34", "x=5, y=0 -> 132",
+                "x=-4, y=1 -> -57"));
+        ConstraintBasedSynthesizer synthesizer = new ConstraintBasedSynthesizer((cfg, exampleSet) -> new LinkedList<>(), 2);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        Thread thread = new Thread(() -> {
+            try {
+                synthesizer.synthesize(buildReducedCFG(E), examples);
+            } catch (Throwable t) {
+                failure.set(t);
+            }
+        });
+        thread.start();
+        while (synthesizer.getMetrics().getZ3Checks() == 0) {
+            Thread.sleep(10);
+        }
+        // The thread is not interrupted, so only the cancellation of the Z3 checks stops the search
+        synthesizer.cancel();
+        thread.join(5000);
+        Assert.assertFalse(thread.isAlive());
+        Assert.assertTrue(String.valueOf(failure.get()), failure.get() instanceof BudgetExceededException);
+        Assert.assertEquals(BudgetExceededException.Reason.INTERRUPTED, ((BudgetExceededException) failure.get()).getReason());
+    }
+}
@@ -0,0 +1,70 @@
+package synth.core;
+
+import com.microsoft.z3.Context;
+import com.microsoft.z3.Expr;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+import static synth.core.TestNodes.E;
+import static synth.core.TestNodes.hole;
+import static synth.core.TestNodes.leaf;
+import static synth.core.TestNodes.node;
+
+/**
+ * Tests for the translation of nodes to Z3 expressions, which are skipped if the Z3 library cannot be loaded.
+ */
+public class Z3TranslatorTests {
+    private Context ctx;
+
+    @Before
+    public void setUp() {
+        try {
+            ctx = new Context();
+        } catch (LinkageError e) {
+            Assume.assumeNoException("The Z3 library is not available", e);
+        }
+    }
+
+    @After
+    public void tearDown() {
+        if (ctx != null) {
+            ctx.close();
+        }
+    }
+
+    @Test
+    public void testSharedSubtreeIsTranslatedOnce() {
+        Z3Translator translator = new Z3Translator(ctx);
+        // Add(x, 1) under two partial programs
+        Expr first = translator.toExpr(node("Multiply", node("Add", leaf("x"), leaf("1")), hole(E)));
+        Expr second = translator.toExpr(node("Lt", node("Add", leaf("x"), leaf("1")), hole(E)));
+        Assert.assertEquals(first.getArgs()[0], second.getArgs()[0]);
+        Assert.assertEquals(ctx.mkAdd(ctx.mkIntConst("x"), ctx.mkInt(1)), first.getArgs()[0]);
+        // The cached translation is returned for an equal subtree
+        Assert.assertSame(translator.toExpr(node("Add", leaf("x"), leaf("1"))), translator.toExpr(node("Add", leaf("x"), leaf("1"))));
+    }
+
+    @Test
+    public void testHolesAreNamedByPosition() {
+        Z3Translator translator = new Z3Translator(ctx);
+        Expr first = translator.toExpr(node("Add", hole(E), hole(E)));
+        Expr second = translator.toExpr(node("Multiply", leaf("y"), hole(E)));
+        // The holes at position 1 are the same constant, the holes at positions 0 and 1 differ
+        Assert.assertEquals(first.getArgs()[1], second.getArgs()[1]);
+        Assert.assertNotEquals(first.getArgs()[0], first.getArgs()[1]);
+        Assert.assertEquals(ctx.mkIntConst("E.1"), first.getArgs()[1]);
+    }
+
+    @Test
+    public void testEvictedSubtreeIsEqual() {
+        Z3Translator translator = new Z3Translator(ctx, 1);
+        ASTNode add = node("Add", leaf("x"), leaf("1"));
+        Expr first = translator.toExpr(add);
+        translator.toExpr(node("Multiply", leaf("y"), leaf("z")));
+        // The translation of Add(x, 1) was evicted, but translating it again gives an equal formula
+        Assert.assertEquals(first, translator.toExpr(add));
+    }
+}
@@ -0,0 +1,67 @@
+package synth.util;
+
+import org.junit.Assert;
+import org.junit.Test;
+import synth.cfg.Terminal;
+import synth.core.ASTNode;
+import synth.core.BatchInterpreter;
+import synth.core.Example;
+import synth.core.ExampleSet;
+import synth.core.Interpreter;
+import synth.core.Program;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Tests for the parser of examples.
+ */
+public class ParserTests {
+
+    @Test
+    public void testParseExamples() {
+        ExampleSet exampleSet = Parser.parseExampleSet(List.of("x=1, y=2, z=3 -> 6", "", "x=-3, y=2, z=0 -> -7"));
+        Assert.assertEquals(List.of("x", "y", "z"), exampleSet.getSymbolTable().getNames());
+        Assert.assertEquals(2, exampleSet.size());
+        Assert.assertArrayEquals(new int[]{1, -3}, exampleSet.getColumn(0));
+        Assert.assertArrayEquals(new int[]{6, -7}, exampleSet.getOutputs());
+    }
+
+    @Test
+    public void testMoreThanThreeVariables() {
+        ExampleSet exampleSet = Parser.parseExampleSet(List.of("a=1, b=2, c=3, d=4 -> 10", "a=5, b=6, c=7, d=8 -> 26"));
+        Assert.assertEquals(List.of("a", "b", "c", "d"), exampleSet.getSymbolTable().getNames());
+
+        // Add(Add(a, b), Add(c, d)), whose variables are resolved against the symbol table of the examples
+        ASTNode[] vars = new ASTNode[4];
+        for (int i = 0; i < vars.length; i++) {
+            String name = exampleSet.getSymbolTable().getNames().get(i);
+            vars[i] = new ASTNode(new Terminal(name, i), Collections.emptyList());
+        }
+        ASTNode expr = new ASTNode(new Terminal("Add"), List.of(
+                new ASTNode(new Terminal("Add"), List.of(vars[0], vars[1])),
+                new ASTNode(new Terminal("Add"), List.of(vars[2], vars[3]))));
+        Assert.assertArrayEquals(exampleSet.getOutputs(), new BatchInterpreter(exampleSet).evalExpr(expr));
+        for (Example example : exampleSet.getExamples()) {
+            Assert.assertEquals(example.getOutput(), Interpreter.evaluate(new Program(expr), example));
+        }
+    }
+
+    @Test(expected = RuntimeException.class)
+    public void testMissingVariable() {
+        Parser.parseExampleSet(List.of("x=1, y=2, z=3 -> 6", "x=3, z=2 -> 7"));
+    }
+
+    @Test
+    public void testMalformedLines() {
+        // Malformed lines are reported whether or not assertions are enabled
+        for (String line : List.of("x=1, y=2 6", "x=1, y=2 -> 6 -> 7", "x=1 y=2 -> 6", "x=1, y -> 6", "x=1, y=a -> 6")) {
+            try {
+                Parser.parseExampleSet(List.of("x=0, y=0 -> 0", line));
+                Assert.fail("Expected a parsing error for " + line);
+            } catch (RuntimeException e) {
+                Assert.assertNotNull(e.getMessage());
+            }
+        }
+    }
+}